@@ -2,7 +2,10 @@ package com.bsc.thesis;
 
 import com.bsc.thesis.Options.Exotic;
 import com.bsc.thesis.Options.exotic.Asian;
+import com.bsc.thesis.Options.exotic.Barrier;
+import com.bsc.thesis.Options.exotic.Cliquet;
 import com.bsc.thesis.Options.exotic.Compound;
+import com.bsc.thesis.Options.exotic.Lookback;
 import com.bsc.thesis.Options.vanilla.American;
 import com.bsc.thesis.Options.vanilla.European;
 import javafx.collections.FXCollections;
@@ -29,6 +32,9 @@ import static com.bsc.thesis.Options.exotic.Compound.calculateCompoundOption;
 
 public class ApplicationController {
 
+    // Largest lattice the barrier pricer may grow to for a barrier close to S0
+    private static final int MAX_BARRIER_STEPS = 20000;
+
     // Common input fields
     @FXML private TextField stockPriceField;
     @FXML private TextField strikePriceField;
@@ -318,8 +324,9 @@ public class ApplicationController {
                         int numPeriods = Integer.parseInt(numPeriodsField.getText());
                         double localCap = Double.parseDouble(localCapField.getText());
                         double localFloor = Double.parseDouble(localFloorField.getText());
-                        result = Exotic.calculateCliquetOption(S0, K, localCap, localFloor, 0.3, -0.3, r, T, sigma, numPeriods);
-                        PricingMethod = "Cliquet Option - Monte Carlo Simulation";
+                        result = S0 * Cliquet.calculateCliquetOption(localFloor, localCap, 0.0, 0.3, T, numPeriods,
+                                Math.max(1, N / numPeriods), sigma, r, p);
+                        PricingMethod = "Cliquet Option - Trinomial Tree";
                         break;
                     case "Compound Option":
                         String compoundType = compoundTypeComboBox.getValue();
@@ -350,7 +357,7 @@ public class ApplicationController {
                         PricingMethod = "Compound Option\ncompoundType: " + compoundType + "\nMethod - Trinomial model";
                         break;
                     case "Lookback Option":
-                        result = Exotic.calculateLookbackCall(S0, r, N, h, u, sigma);
+                        result = Lookback.calculateLookbackOption(true, S0, r, T, sigma, p, N);
                         PricingMethod = "Lookback Option (Floating Strike) - Trinomial Tree";
                         break;
                     case "Bermudan Option":
@@ -370,6 +377,8 @@ public class ApplicationController {
 
         } catch (NumberFormatException e) {
             showError("Please enter valid numeric values in all required fields.");
+        } catch (IllegalArgumentException e) {
+            showError(e.getMessage());
         } catch (Exception e) {
             showError("Maybe you forgot to choose an Option Type\n");
             System.out.println(e.getMessage());
@@ -379,19 +388,24 @@ public class ApplicationController {
 
     private double calculateBarrierOption(double S0, double K, double barrier, double r,
                                           int N, double h, double u, double sigma, String barrierType) {
+        // Down barriers on calls, up barriers on puts. The lattice chooses its own stretch u so that the barrier
+        // lies on a layer, which fixes p = sigma^2 h / (2u^2): the u and p fields are not used for barriers.
+        // A barrier closer to S0 than one layer needs more steps, N is raised to the smallest count that fits.
+        double T = N * h;
+        boolean isDown = barrierType.startsWith("Down");
+        int steps = Math.max(N, Barrier.minimumSteps(S0, barrier, sigma, T));
+        if (steps > MAX_BARRIER_STEPS) {
+            throw new IllegalArgumentException("Barrier " + barrier + " is too close to S0 = " + S0
+                    + ", it needs " + steps + " steps (at most " + MAX_BARRIER_STEPS + ")");
+        }
         switch (barrierType) {
             case "Down-and-Out":
-                return Exotic.calculateBarrierDownOutCall(S0, K, barrier, r, N, h, u, sigma);
-            case "Down-and-In":
-                return Exotic.calculateBarrierDownInCall(S0, K, barrier, r, N, h, u, sigma);
             case "Up-and-Out":
-                return Exotic.calculateBarrierOption(S0, K, barrier, r, N, h, u, sigma, false, false, true);
+                return Barrier.calculateBarrierOption(isDown, isDown, S0, K, barrier, r, T, sigma, steps, null);
+            case "Down-and-In":
             case "Up-and-In":
-                // Up-and-In = Vanilla - Up-and-Out
-                double p = Double.parseDouble(prob_p_Field.getText());
-                double vanilla = new European(K).calculateEuropeanOptions(true, S0, N, u, r, p, h);
-                double upOut = Exotic.calculateBarrierOption(S0, K, barrier, r, N, h, u, sigma, false, false, true);
-                return vanilla - upOut;
+                // Knock-in = vanilla - knock-out from one induction of the two
+                return Barrier.calculateKnockInOption(isDown, isDown, S0, K, barrier, r, T, sigma, steps, null);
             default:
                 throw new IllegalArgumentException("Unknown barrier type: " + barrierType);
         }
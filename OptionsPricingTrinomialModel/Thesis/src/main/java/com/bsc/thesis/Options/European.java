@@ -1,7 +1,8 @@
 package com.bsc.thesis.Options;
 
+import com.bsc.thesis.Options.vanilla.utils.ParallelInduction;
+
 import java.util.concurrent.ForkJoinPool;
-import java.util.stream.IntStream;
 
 public class European {
     private static final ForkJoinPool pool = new ForkJoinPool();
@@ -28,39 +29,20 @@ public class European {
                 - q0 * (Math.exp(u) - 1) / (Math.exp(u) - Math.exp(-u));
 
         double discount = Math.exp(-r * h);
-
-        // Use a wrapper class to handle the array in lambda expressions
-        class ArrayHolder {
-            double[] values;
-            ArrayHolder(double[] values) { this.values = values; }
-        }
-        ArrayHolder holder = new ArrayHolder(new double[2 * N + 1]);
+        double[] values = new double[2 * N + 1];
 
         // Initialize option values at maturity
-        IntStream.range(0, 2 * N + 1).parallel().forEach(i -> {
+        for (int i = 0; i < 2 * N + 1; i++) {
             double ST = S0 * Math.exp((N - i) * u);
             if (isCall) {
-                holder.values[i] = Math.max(ST - K, 0);
+                values[i] = Math.max(ST - K, 0);
             } else {
-                holder.values[i] = Math.max(K - ST, 0);
+                values[i] = Math.max(K - ST, 0);
             }
-        });
-
-        // Backward induction
-        for (int j = N - 1; j >= 0; j--) {
-            double[] newValues = new double[2 * N + 1];
-            final double[] currentValues = holder.values; // Final reference for lambda
-
-            IntStream.range(N - j, N + j + 1).parallel().forEach(i -> {
-                double continuationValue = discount *
-                        (qu * currentValues[i - 1] + q0 * currentValues[i] + qd * currentValues[i + 1]);
-                newValues[i] = continuationValue;
-            });
-
-            holder.values = newValues;
         }
 
-        return holder.values[N];
+        // Backward induction
+        return ParallelInduction.price(values, N, discount * qu, discount * q0, discount * qd, null);
     }
 
     // Cumulative distribution function for standard normal distribution
@@ -1,13 +1,30 @@
 package com.bsc.thesis.Options;
 
+import com.bsc.thesis.Options.exotic.Barrier;
+import com.bsc.thesis.Options.montecarlo.AdaptiveMonteCarlo;
+import com.bsc.thesis.Options.montecarlo.ControlVariate;
+import com.bsc.thesis.Options.montecarlo.GeometricBrownianMotion;
+import com.bsc.thesis.Options.montecarlo.LongstaffSchwartz;
+import com.bsc.thesis.Options.montecarlo.MonteCarloEngine;
+import com.bsc.thesis.Options.montecarlo.MonteCarloResult;
+import com.bsc.thesis.Options.montecarlo.MultilevelMonteCarlo;
+import com.bsc.thesis.Options.montecarlo.PathFunctional;
+import com.bsc.thesis.Options.montecarlo.PathFunctionals;
+import com.bsc.thesis.Options.montecarlo.QuasiMonteCarloEngine;
+import com.bsc.thesis.Options.montecarlo.SobolSequence;
+import com.bsc.thesis.Options.vanilla.utils.ParallelInduction;
+import com.bsc.thesis.Options.vanilla.utils.StockLattice;
+
 import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
-import java.util.Arrays;
-import java.util.Random;
 
 public class Exotic {
     private static final ForkJoinPool pool = new ForkJoinPool();
-    private static final Random random = new Random();
+
+    // Nodes x bins of a time slab above which the Asian induction runs in parallel
+    private static final int ASIAN_PARALLEL_THRESHOLD = 1 << 15;
 
     // ==================== ASIAN OPTIONS ====================
 
@@ -35,45 +52,71 @@ public class Exotic {
         double discount = Math.exp(-r * h);
 
         // Use state-space for average price approximation (more efficient than full path storage)
-        int avgBins = Math.min(100, N * 2); // Reduced state space
-        double[][][] dp = new double[N + 1][2 * N + 1][avgBins];
+        final int avgBins = Math.min(100, N * 2); // Reduced state space
 
-        // Initialize at maturity
+        // Bin centres and node prices are computed once instead of in the innermost loop
+        final double[] binAvg = new double[avgBins];
+        for (int avgBin = 0; avgBin < avgBins; avgBin++) {
+            binAvg[avgBin] = calculateAverageFromBin(avgBin, avgBins, S0, S0, N);
+        }
+        final double[] nodePrice = new double[2 * N + 1]; // nodePrice[k + N] = S0 * exp(k * u)
+        for (int k = -N; k <= N; k++) {
+            nodePrice[k + N] = S0 * Math.exp(k * u);
+        }
+
+        // Two time slabs, node-major and bin-minor: value of (node i, bin b) is at i * avgBins + b
+        double[] next = new double[(2 * N + 1) * avgBins];
+        double[] current = new double[(2 * N + 1) * avgBins];
+
+        // Initialize at maturity, the payoff only depends on the bin
         for (int i = 0; i <= 2 * N; i++) {
             for (int avgBin = 0; avgBin < avgBins; avgBin++) {
-                double ST = S0 * Math.exp((N - i) * u);
-                double avgPrice = calculateAverageFromBin(avgBin, avgBins, S0, ST, N);
+                double avgPrice = binAvg[avgBin];
 
                 if (isCall) {
-                    dp[N][i][avgBin] = Math.max(avgPrice - K, 0);
+                    next[i * avgBins + avgBin] = Math.max(avgPrice - K, 0);
                 } else {
-                    dp[N][i][avgBin] = Math.max(K - avgPrice, 0);
+                    next[i * avgBins + avgBin] = Math.max(K - avgPrice, 0);
                 }
             }
         }
 
         // Backward induction
         for (int j = N - 1; j >= 0; j--) {
-            for (int i = N - j; i <= N + j; i++) {
+            final int step = j;
+            final double[] src = next;
+            final double[] dst = current;
+            IntConsumer node = i -> {
+                double ST = nodePrice[step - i + N];
+                int base = i * avgBins;
                 for (int avgBin = 0; avgBin < avgBins; avgBin++) {
-                    double ST = S0 * Math.exp((j - i) * u);
-                    double currentAvg = calculateAverageFromBin(avgBin, avgBins, S0, ST, j);
-                    double newAvg = (currentAvg * j + ST) / (j + 1);
+                    double currentAvg = binAvg[avgBin];
+                    double newAvg = (currentAvg * step + ST) / (step + 1);
                     int newAvgBin = (int) ((newAvg / (S0 * 2)) * avgBins);
                     newAvgBin = Math.max(0, Math.min(avgBins - 1, newAvgBin));
 
-                    double continuationValue = discount * (
-                            qu * dp[j + 1][i - 1][newAvgBin] +
-                                    q0 * dp[j + 1][i][newAvgBin] +
-                                    qd * dp[j + 1][i + 1][newAvgBin]
+                    dst[base + avgBin] = discount * (
+                            qu * src[base - avgBins + newAvgBin] +
+                                    q0 * src[base + newAvgBin] +
+                                    qd * src[base + avgBins + newAvgBin]
                     );
+                }
+            };
 
-                    dp[j][i][avgBin] = continuationValue;
+            if ((2 * j + 1) * avgBins >= ASIAN_PARALLEL_THRESHOLD) {
+                pool.submit(() -> IntStream.rangeClosed(N - step, N + step).parallel().forEach(node)).join();
+            } else {
+                for (int i = N - j; i <= N + j; i++) {
+                    node.accept(i);
                 }
             }
+
+            double[] temp = next;
+            next = current;
+            current = temp;
         }
 
-        return dp[0][N][0];
+        return next[N * avgBins];
     }
 
     private static double calculateAverageFromBin(int bin, int totalBins, double S0, double ST, int steps) {
@@ -87,35 +130,51 @@ public class Exotic {
     public static double calculateCliquetOption(double S0, double initialStrike, double localCap,
                                                 double localFloor, double globalCap, double globalFloor,
                                                 double r, double T, double sigma, int numPeriods) {
-        double periodLength = T / numPeriods;
-        double[] periodReturns = new double[numPeriods];
+        return calculateCliquetOption(S0, initialStrike, localCap, localFloor, globalCap, globalFloor,
+                r, T, sigma, numPeriods, MonteCarloEngine.DEFAULT_SEED).price;
+    }
 
-        // Monte Carlo simulation for cliquet option
+    public static MonteCarloResult calculateCliquetOption(double S0, double initialStrike, double localCap,
+                                                          double localFloor, double globalCap, double globalFloor,
+                                                          double r, double T, double sigma, int numPeriods, long seed) {
+        // Monte Carlo simulation for cliquet option, one monitoring date per period
         int numSimulations = 10000;
-        double sumPayoffs = 0;
-
-        for (int sim = 0; sim < numSimulations; sim++) {
-            double currentPrice = S0;
-            double totalReturn = 0;
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, numPeriods);
 
-            for (int period = 0; period < numPeriods; period++) {
-                double nextPrice = currentPrice * Math.exp(
-                        (r - 0.5 * sigma * sigma) * periodLength +
-                                sigma * Math.sqrt(periodLength) * random.nextGaussian()
-                );
-
-                double periodReturn = (nextPrice - currentPrice) / currentPrice;
-                double cappedReturn = Math.max(localFloor, Math.min(localCap, periodReturn));
+        // Payoff in currency terms, never below 0; antithetic pairs with the locally bounded sum as control
+        return MonteCarloEngine.price(model, numSimulations, seed,
+                () -> new PathFunctionals.Cliquet(localFloor, localCap, Math.max(0, globalFloor), globalCap, numPeriods, numPeriods),
+                true, ControlVariate.localCliquet(model, localFloor, localCap, numPeriods));
+    }
 
-                totalReturn += cappedReturn;
-                currentPrice = nextPrice;
-            }
+    /**
+     * Adaptive version of calculateCliquetOption: runs until the 95% confidence half-width is at most
+     * targetHalfWidth or the time budget is spent, instead of a fixed number of paths
+     */
+    public static AdaptiveMonteCarlo.Result calculateCliquetOptionAdaptive(double S0, double initialStrike, double localCap,
+                                                                           double localFloor, double globalCap, double globalFloor,
+                                                                           double r, double T, double sigma, int numPeriods,
+                                                                           double targetHalfWidth, long timeBudgetMillis, long seed) {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, numPeriods);
+
+        return AdaptiveMonteCarlo.price(model, seed,
+                () -> new PathFunctionals.Cliquet(localFloor, localCap, Math.max(0, globalFloor), globalCap, numPeriods, numPeriods),
+                true, ControlVariate.localCliquet(model, localFloor, localCap, numPeriods),
+                targetHalfWidth, AdaptiveMonteCarlo.DEFAULT_CONFIDENCE, timeBudgetMillis, AdaptiveMonteCarlo.DEFAULT_MAX_PATHS);
+    }
 
-            double finalReturn = Math.max(globalFloor, Math.min(globalCap, totalReturn));
-            sumPayoffs += Math.max(0, finalReturn) * S0; // Payoff in currency terms
-        }
+    /**
+     * Randomized quasi-Monte Carlo version of calculateCliquetOption, one Sobol dimension per period
+     */
+    public static MonteCarloResult calculateCliquetOptionQuasiMonteCarlo(double S0, double initialStrike, double localCap,
+                                                                         double localFloor, double globalCap, double globalFloor,
+                                                                         double r, double T, double sigma, int numPeriods, long seed) {
+        int numSimulations = 10000;
+        int replicas = QuasiMonteCarloEngine.DEFAULT_REPLICAS;
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, numPeriods);
 
-        return Math.exp(-r * T) * (sumPayoffs / numSimulations);
+        return QuasiMonteCarloEngine.price(model, numSimulations / replicas, replicas, seed, SobolSequence.Scrambling.LINEAR_SHIFT,
+                () -> new PathFunctionals.Cliquet(localFloor, localCap, Math.max(0, globalFloor), globalCap, numPeriods, numPeriods));
     }
 
     // ==================== COMPOUND OPTIONS ====================
@@ -243,48 +302,59 @@ public class Exotic {
         double[] optionValues = new double[2 * N + 1];
 
         // Initialize option values at maturity
-        double[] finalOptionValues1 = optionValues;
-        IntStream.range(0, 2 * N + 1).parallel().forEach(i -> {
+        for (int i = 0; i < 2 * N + 1; i++) {
             double ST = S0 * Math.exp((N - i) * u);
             if (isCall) {
-                finalOptionValues1[i] = Math.max(ST - K, 0);
+                optionValues[i] = Math.max(ST - K, 0);
             } else {
-                finalOptionValues1[i] = Math.max(K - ST, 0);
+                optionValues[i] = Math.max(K - ST, 0);
             }
-        });
-
-        // Backward induction
-        for (int j = N - 1; j >= 0; j--) {
-            double[] newValues = new double[2 * N + 1];
-            boolean isExerciseDate = contains(exerciseDates, j);
-
-            double[] finalOptionValues = optionValues;
-            int finalJ = j;
-            IntStream.range(N - j, N + j + 1).parallel().forEach(i -> {
-                double ST = S0 * Math.exp((finalJ - i) * u);
-
-                double exerciseValue;
-                if (isCall) {
-                    exerciseValue = Math.max(ST - K, 0);
-                } else {
-                    exerciseValue = Math.max(K - ST, 0);
-                }
+        }
 
-                double continuationValue = discount *
-                        (qu * finalOptionValues[i - 1] + q0 * finalOptionValues[i] + qd * finalOptionValues[i + 1]);
+        boolean[] isExerciseDate = new boolean[N + 1];
+        for (int j = 0; j < N; j++) {
+            isExerciseDate[j] = contains(exerciseDates, j);
+        }
 
-                // At exercise dates, choose maximum of exercise and continuation
-                if (isExerciseDate) {
-                    newValues[i] = Math.max(exerciseValue, continuationValue);
-                } else {
-                    newValues[i] = continuationValue;
-                }
-            });
+        // Backward induction, at exercise dates choose maximum of exercise and continuation
+        StockLattice lattice = new StockLattice(S0, N, u);
+        return ParallelInduction.price(optionValues, N, discount * qu, discount * q0, discount * qd,
+                (step, values, offset, from, to) -> {
+                    if (!isExerciseDate[step]) {
+                        return;
+                    }
+                    for (int i = from; i <= to; i++) {
+                        double ST = S0 * lattice.power(step - i);
+                        double exerciseValue = isCall ? Math.max(ST - K, 0) : Math.max(K - ST, 0);
+                        values[i - offset] = Math.max(exerciseValue, values[i - offset]);
+                    }
+                });
+    }
 
-            optionValues = newValues;
-        }
+    /**
+     * Least-squares Monte Carlo (Longstaff-Schwartz) price of a Bermudan option exercisable at
+     * i*T/numExerciseDates, i = 1..numExerciseDates; many dates approximate the American option
+     * @param singlePrecision keep the simulated paths as float, half the memory of double
+     */
+    public static MonteCarloResult calculateBermudanOptionMonteCarlo(double S0, double K, double r, double T, double sigma,
+                                                                     int numExerciseDates, int numSimulations, long seed,
+                                                                     boolean isCall, boolean singlePrecision) {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, numExerciseDates);
+        return LongstaffSchwartz.price(model, numSimulations, seed,
+                isCall ? LongstaffSchwartz.call(K) : LongstaffSchwartz.put(K), 3, false, singlePrecision);
+    }
 
-        return optionValues[N];
+    /**
+     * Least-squares Monte Carlo price of a Bermudan Asian option: exercise at any of the dates
+     * i*T/numExerciseDates pays the average of the prices at the dates so far against K. The continuation
+     * value is regressed on the spot and the running average.
+     */
+    public static MonteCarloResult calculateBermudanAsianMonteCarlo(double S0, double K, double r, double T, double sigma,
+                                                                    int numExerciseDates, int numSimulations, long seed,
+                                                                    boolean isCall, boolean singlePrecision) {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, numExerciseDates);
+        return LongstaffSchwartz.price(model, numSimulations, seed,
+                LongstaffSchwartz.asian(isCall, K), 2, true, singlePrecision);
     }
 
     private static boolean contains(int[] array, int value) {
@@ -306,12 +376,13 @@ public class Exotic {
         return calculateBarrierOption(S0, K, barrier, r, N, h, u, sigma, false, false, true);
     }
 
+    /**
+     * Down-In = Vanilla - Down-Out, both from one induction on the node-aligned lattice of
+     * exotic.Barrier (u is replaced by the stretch that puts the barrier on a layer)
+     */
     public static double calculateBarrierDownInCall(double S0, double K, double barrier,
                                                     double r, int N, double h, double u, double sigma) {
-        // Down-In = Vanilla - Down-Out
-        //double vanilla = European_Unused.calculateEuropeanCallTrinomial(S0, K, r, N, h, u, sigma);
-        //double downOut = calculateBarrierDownOutCall(S0, K, barrier, r, N, h, u, sigma);
-        return 0;//vanilla - downOut;
+        return Barrier.calculateKnockInOption(true, true, S0, K, barrier, r, N * h, sigma, N, null);
     }
 
     public static double calculateBarrierOption(double S0, double K, double barrier,
@@ -328,45 +399,32 @@ public class Exotic {
         double[] optionValues = new double[2 * N + 1];
 
         // Initialize option values at maturity
-        double[] finalOptionValues1 = optionValues;
-        IntStream.range(0, 2 * N + 1).parallel().forEach(i -> {
+        for (int i = 0; i < 2 * N + 1; i++) {
             double ST = S0 * Math.exp((N - i) * u);
             boolean isActive = isOptionActive(ST, barrier, isDown, isOut);
 
             if (isActive) {
                 if (isCall) {
-                    finalOptionValues1[i] = Math.max(ST - K, 0);
+                    optionValues[i] = Math.max(ST - K, 0);
                 } else {
-                    finalOptionValues1[i] = Math.max(K - ST, 0);
+                    optionValues[i] = Math.max(K - ST, 0);
                 }
             } else {
-                finalOptionValues1[i] = 0;
+                optionValues[i] = 0;
             }
-        });
-
-        // Backward induction
-        for (int j = N - 1; j >= 0; j--) {
-            double[] newValues = new double[2 * N + 1];
-
-            double[] finalOptionValues = optionValues;
-            int finalJ = j;
-            IntStream.range(N - j, N + j + 1).parallel().forEach(i -> {
-                double ST = S0 * Math.exp((finalJ - i) * u);
-                boolean isActive = isOptionActive(ST, barrier, isDown, isOut);
-
-                if (isActive) {
-                    double continuationValue = discount *
-                            (qu * finalOptionValues[i - 1] + q0 * finalOptionValues[i] + qd * finalOptionValues[i + 1]);
-                    newValues[i] = continuationValue;
-                } else {
-                    newValues[i] = 0;
-                }
-            });
-
-            optionValues = newValues;
         }
 
-        return optionValues[N];
+        // Backward induction, knocked rows are zeroed after the stencil
+        StockLattice lattice = new StockLattice(S0, N, u);
+        return ParallelInduction.price(optionValues, N, discount * qu, discount * q0, discount * qd,
+                (step, values, offset, from, to) -> {
+                    for (int i = from; i <= to; i++) {
+                        double ST = S0 * lattice.power(step - i);
+                        if (!isOptionActive(ST, barrier, isDown, isOut)) {
+                            values[i - offset] = 0;
+                        }
+                    }
+                });
     }
 
     private static boolean isOptionActive(double price, double barrier, boolean isDown, boolean isOut) {
@@ -412,53 +470,107 @@ public class Exotic {
     public static double calculateExoticMonteCarlo(double S0, double K, double r, double T,
                                                    double sigma, int numSimulations, String optionType,
                                                    Object... params) {
-        double sumPayoffs = 0;
+        return calculateExoticMonteCarlo(S0, K, r, T, sigma, numSimulations, MonteCarloEngine.DEFAULT_SEED,
+                optionType, params).price;
+    }
 
-        for (int i = 0; i < numSimulations; i++) {
-            double[] path = generatePath(S0, r, T, sigma, (int)(T * 252)); // Daily steps
-            double payoff = calculateExoticPayoff(path, K, optionType, params);
-            sumPayoffs += payoff;
-        }
+    /**
+     * Monte Carlo price of an exotic option with daily monitoring at i*T/steps, i = 1..steps,
+     * using antithetic pairs and a control variate (see exoticControl)
+     * @param optionType "Asian" (average call), "Lookback" (floating strike call),
+     *                   "Barrier" with params (Double barrier, Boolean isDown, Boolean isOut) on a call,
+     *                   "Cliquet" with params (Double localFloor, Double localCap, Double globalFloor,
+     *                   Double globalCap, Integer numPeriods) with numPeriods reset dates spread over the
+     *                   trading days (1..steps, the last one at maturity), anything else a European call
+     */
+    public static MonteCarloResult calculateExoticMonteCarlo(double S0, double K, double r, double T,
+                                                             double sigma, int numSimulations, long seed,
+                                                             String optionType, Object... params) {
+        int steps = (int) (T * 252); // Daily steps
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, steps);
+        return MonteCarloEngine.price(model, numSimulations, seed, exoticPayoff(K, steps, optionType, params),
+                true, exoticControl(model, K, optionType, params));
+    }
 
-        return Math.exp(-r * T) * (sumPayoffs / numSimulations);
+    /**
+     * Adaptive version of calculateExoticMonteCarlo: runs until the 95% confidence half-width is at most
+     * targetHalfWidth or the time budget is spent, instead of a fixed number of paths
+     */
+    public static AdaptiveMonteCarlo.Result calculateExoticMonteCarloAdaptive(double S0, double K, double r, double T,
+                                                                              double sigma, double targetHalfWidth,
+                                                                              long timeBudgetMillis, long seed,
+                                                                              String optionType, Object... params) {
+        int steps = (int) (T * 252); // Daily steps
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, steps);
+        return AdaptiveMonteCarlo.price(model, seed, exoticPayoff(K, steps, optionType, params),
+                true, exoticControl(model, K, optionType, params),
+                targetHalfWidth, AdaptiveMonteCarlo.DEFAULT_CONFIDENCE, timeBudgetMillis, AdaptiveMonteCarlo.DEFAULT_MAX_PATHS);
     }
 
-    private static double[] generatePath(double S0, double r, double T, double sigma, int steps) {
-        double[] path = new double[steps];
-        path[0] = S0;
-        double dt = T / steps;
+    /**
+     * Multilevel Monte Carlo version of calculateExoticMonteCarlo: the coarse levels monitor every 2nd, 4th, ...
+     * trading day and carry most of the samples, the daily level only a few, for a target RMSE of the price
+     */
+    public static MultilevelMonteCarlo.Result calculateExoticMultilevel(double S0, double K, double r, double T,
+                                                                        double sigma, double rmse, long seed,
+                                                                        String optionType, Object... params) {
+        int steps = (int) (T * 252); // Daily steps
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, steps);
+        return MultilevelMonteCarlo.price(model, rmse, seed, exoticPayoff(K, steps, optionType, params));
+    }
 
-        for (int i = 1; i < steps; i++) {
-            double z = random.nextGaussian();
-            path[i] = path[i - 1] * Math.exp((r - 0.5 * sigma * sigma) * dt + sigma * Math.sqrt(dt) * z);
+    /**
+     * Randomized quasi-Monte Carlo version of calculateExoticMonteCarlo: scrambled Sobol points with a
+     * Brownian bridge, numSimulations paths split over QuasiMonteCarloEngine.DEFAULT_REPLICAS replicas
+     */
+    public static MonteCarloResult calculateExoticQuasiMonteCarlo(double S0, double K, double r, double T,
+                                                                  double sigma, int numSimulations, long seed,
+                                                                  String optionType, Object... params) {
+        int replicas = QuasiMonteCarloEngine.DEFAULT_REPLICAS;
+        if (numSimulations < replicas) {
+            throw new IllegalArgumentException("Number of simulations must be at least " + replicas + ". Got: " + numSimulations);
         }
-
-        return path;
+        int steps = (int) (T * 252); // Daily steps
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, steps);
+        return QuasiMonteCarloEngine.price(model, numSimulations / replicas, replicas, seed,
+                SobolSequence.Scrambling.LINEAR_SHIFT, exoticPayoff(K, steps, optionType, params));
     }
 
-    private static double calculateExoticPayoff(double[] path, double K, String optionType, Object... params) {
-        switch (optionType) {
-            case "Asian":
-                double avg = Arrays.stream(path).average().orElse(0);
-                return Math.max(avg - K, 0);
-
-            case "Lookback":
-                double min = Arrays.stream(path).min().orElse(0);
-                return path[path.length - 1] - min;
+    // Control variate with a closed form: geometric Asian, vanilla call, or the cliquet without global bounds
+    private static ControlVariate exoticControl(GeometricBrownianMotion model, double K, String optionType, Object... params) {
+        return switch (optionType) {
+            case "Asian" -> ControlVariate.geometricAsian(model, true, K);
+            case "Lookback" -> ControlVariate.european(model, true, model.getS0());
+            case "Barrier" -> ControlVariate.european(model, true, K);
+            case "Cliquet" -> ControlVariate.localCliquet(model, (Double) params[0], (Double) params[1], (Integer) params[4]);
+            default -> null; // antithetic pairs only, the vanilla has no better control than itself
+        };
+    }
 
-            case "Barrier":
+    // The parameters are unboxed once here, not per path
+    private static Supplier<PathFunctional> exoticPayoff(double K, int steps, String optionType, Object... params) {
+        return switch (optionType) {
+            case "Asian" -> () -> new PathFunctionals.Asian(true, K);
+            case "Lookback" -> () -> new PathFunctionals.Lookback(true);
+            case "Barrier" -> {
                 double barrier = (Double) params[0];
-                boolean knockedOut = Arrays.stream(path).anyMatch(price ->
-                        (Boolean) params[1] ? price <= barrier : price >= barrier);
-                if (knockedOut == (Boolean) params[2]) return 0;
-                return Math.max(path[path.length - 1] - K, 0);
-
-            case "Cliquet":
-                // Implement cliquet payoff logic
-                return 0;
-
-            default:
-                return Math.max(path[path.length - 1] - K, 0);
-        }
+                boolean isDown = (Boolean) params[1];
+                boolean isOut = (Boolean) params[2];
+                yield () -> new PathFunctionals.Barrier(true, K, barrier, isDown, isOut);
+            }
+            case "Cliquet" -> {
+                double localFloor = (Double) params[0];
+                double localCap = (Double) params[1];
+                double globalFloor = (Double) params[2];
+                double globalCap = (Double) params[3];
+                int numPeriods = (Integer) params[4];
+                if (numPeriods < 1 || numPeriods > steps) {
+                    throw new IllegalArgumentException("Number of periods must be between 1 and the number of trading days "
+                            + steps + ". Got: " + numPeriods);
+                }
+                yield () -> new PathFunctionals.Cliquet(localFloor, localCap, globalFloor, globalCap, steps, numPeriods);
+            }
+            default -> () -> new PathFunctionals.European(true, K);
+        };
     }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.bsc.thesis.Options.exotic;
 
+import com.bsc.thesis.Options.exotic.utils.ExactAsianEnumerator;
+import com.bsc.thesis.Options.exotic.utils.GeometricAsian;
+import com.bsc.thesis.Options.exotic.utils.RepresentativeAverageAsian;
 import com.bsc.thesis.Options.exotic.utils.Utils;
 
 /**
@@ -40,4 +43,42 @@ public class Asian {
 
         return price;
     }
-}
\ No newline at end of file
+
+    /**
+     * Computes the price of an arithmetic Asian option in O(N^2 * averages) with representative averages,
+     * see {@link RepresentativeAverageAsian}
+     * @param isCall true for a call, false for a put
+     * @param S0 initial stock price
+     * @param K strike price
+     * @param r risk-free interest rate
+     * @param T time to maturity
+     * @param sigma volatility
+     * @param p probability parameter
+     * @param N number of steps
+     * @param averages number of representative averages per node
+     * @return price, exact price for small N and error estimate
+     */
+    public static RepresentativeAverageAsian.Result calculateAsianOptionRepresentative(boolean isCall, double S0, double K,
+                                                                                       double r, double T, double sigma,
+                                                                                       double p, int N, int averages) {
+        return RepresentativeAverageAsian.price(isCall, S0, K, r, T, sigma, p, N, averages);
+    }
+
+    /**
+     * Computes the exact price of an arithmetic Asian option by enumerating all 3^N paths
+     * in parallel, same value as {@link #calculateAsianOption}, see {@link ExactAsianEnumerator}
+     */
+    public static double calculateAsianOptionExact(boolean isCall, double S0, double K, double r, double T,
+                                                   double sigma, double p, int N) {
+        return ExactAsianEnumerator.price(isCall, S0, K, r, T, sigma, p, N);
+    }
+
+    /**
+     * Computes the exact price of a geometric Asian option on the trinomial lattice,
+     * see {@link GeometricAsian}
+     */
+    public static double calculateGeometricAsianOption(boolean isCall, double S0, double K, double r, double T,
+                                                       double sigma, double p, int N) {
+        return GeometricAsian.price(isCall, S0, K, r, T, sigma, p, N);
+    }
+}
@@ -1,4 +1,623 @@
 package com.bsc.thesis.Options.exotic;
 
+import com.bsc.thesis.Options.vanilla.utils.StencilKernel;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+import static com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing.riskNeutralProbabilities;
+
+/**
+ * Barrier - Single, double and window barrier options on a node-aligned trinomial lattice
+ * With a fixed stretch u the barrier usually falls between two layers of the lattice, and the price jumps
+ * whenever a layer crosses it as N grows. Here u is chosen so that ln(B/S0) = k*u for an integer k: the
+ * smallest u >= sigma*sqrt(h) that puts the barrier on a layer, so p = sigma^2 h / (2u^2) <= 1/2 stays a
+ * valid probability. The barrier is then k rows below or above S0, and the price converges smoothly.
+ * The barrier is checked at the monitoring steps only: a run of consecutive steps approximates continuous
+ * monitoring, an isolated step is a discrete monitoring date and gives the barrier node half its value.
+ * The induction tracks the band of rows that can be non-zero: at a monitoring step the rows beyond the
+ * barrier are cut off, in between the band grows by one row per step on each side, so dead rows are
+ * never computed. The interior of the band runs on StencilKernel, the edge rows read zeros outside it.
+ * A knocked-in option is a vanilla, so a knock-in carries two vectors per payoff through the same induction:
+ * the knocked state (vanilla) and the not-yet-knocked state, which is zero until a monitoring step copies the
+ * knocked state into the rows beyond the barrier. The barrier row splits like the knock-out's, so knock-in +
+ * knock-out = vanilla holds node by node and is a check of both, not a definition of either. The double
+ * barrier knock-in is vanilla - knock-out, which keeps it on the cheap corridor band.
+ * With two barriers both are put on layers, u = ln(U/L)/m, so S0 generally falls between two rows; the
+ * lattice is shifted by that fraction of a row and the root value is interpolated quadratically from the
+ * nearest rows around S0, one-sided from inside the corridor when S0 is next to a barrier. Continuously
+ * monitored, the band never leaves the corridor between the barriers, so the cost is N times the corridor
+ * width instead of N^2. Rebates are paid at maturity and priced with a knock-out digital carried in the
+ * same induction.
+ */
 public class Barrier {
+
+    /**
+     * Knock-out, knock-in and vanilla calls and puts of one barrier, from one induction
+     */
+    public static class Result {
+        public final double outCall;
+        public final double inCall;
+        public final double vanillaCall;
+        public final double outPut;
+        public final double inPut;
+        public final double vanillaPut;
+
+        Result(double outCall, double inCall, double vanillaCall, double outPut, double inPut, double vanillaPut) {
+            this.outCall = outCall;
+            this.inCall = inCall;
+            this.vanillaCall = vanillaCall;
+            this.outPut = outPut;
+            this.inPut = inPut;
+            this.vanillaPut = vanillaPut;
+        }
+    }
+
+    /**
+     * Computes the price of a knock-out option with the barrier on a layer of the lattice
+     * @param isCall true for a call, false for a put
+     * @param isDown true for a down-and-out barrier (B < S0), false for up-and-out (B > S0)
+     * @param S0 initial stock price
+     * @param K strike price
+     * @param B barrier, the option is knocked out at S <= B (down) or S >= B (up) on a monitoring step
+     * @param r risk-free interest rate
+     * @param T time to maturity
+     * @param sigma volatility
+     * @param N number of steps
+     * @param monitoringSteps lattice steps (0..N) at which the barrier is checked, null for every step
+     * @return knock-out option price
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public static double calculateBarrierOption(boolean isCall, boolean isDown, double S0, double K, double B,
+                                                double r, double T, double sigma, int N, int[] monitoringSteps) {
+        Lattice lattice = Lattice.single(isDown, S0, B, r, T, sigma, N, monitoringSteps);
+        Band out = new Band(lattice, payoff(isCall, K), true);
+
+        // Backward induction over the band only
+        for (int j = N - 1; j >= 0; j--) {
+            out.step(lattice, j);
+        }
+        return out.root(lattice);
+    }
+
+    /**
+     * Computes the price of a knock-in option from its knocked (vanilla) and not-yet-knocked states,
+     * carried through the same induction (see calculateBarrierOption)
+     * @param isDown true for a down-and-in barrier (B < S0), false for up-and-in (B > S0)
+     * @return knock-in option price
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public static double calculateKnockInOption(boolean isCall, boolean isDown, double S0, double K, double B,
+                                                double r, double T, double sigma, int N, int[] monitoringSteps) {
+        Lattice lattice = Lattice.single(isDown, S0, B, r, T, sigma, N, monitoringSteps);
+        Band vanilla = new Band(lattice, payoff(isCall, K), false);
+        Band in = new Band(lattice, vanilla);
+
+        // The knocked state first, the not-yet-knocked state reads it at the same step
+        for (int j = N - 1; j >= 0; j--) {
+            vanilla.step(lattice, j);
+            in.step(lattice, j);
+        }
+        return in.root(lattice);
+    }
+
+    /**
+     * Computes the knock-out and knock-in calls and puts of a barrier in one backward induction,
+     * with the barrier on a layer of the lattice (see calculateBarrierOption)
+     * @param isDown true for a down barrier (B < S0), false for an up barrier (B > S0)
+     * @return all in/out x call/put prices and the vanillas, each from its own vector
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public static Result calculateBarrierPair(boolean isDown, double S0, double K, double B, double r, double T,
+                                              double sigma, int N, int[] monitoringSteps) {
+        Lattice lattice = Lattice.single(isDown, S0, B, r, T, sigma, N, monitoringSteps);
+        Band outCall = new Band(lattice, payoff(true, K), true);
+        Band vanillaCall = new Band(lattice, payoff(true, K), false);
+        Band inCall = new Band(lattice, vanillaCall);
+        Band outPut = new Band(lattice, payoff(false, K), true);
+        Band vanillaPut = new Band(lattice, payoff(false, K), false);
+        Band inPut = new Band(lattice, vanillaPut);
+
+        for (int j = N - 1; j >= 0; j--) {
+            outCall.step(lattice, j);
+            vanillaCall.step(lattice, j);
+            inCall.step(lattice, j);
+            outPut.step(lattice, j);
+            vanillaPut.step(lattice, j);
+            inPut.step(lattice, j);
+        }
+        return new Result(outCall.root(lattice), inCall.root(lattice), vanillaCall.root(lattice),
+                outPut.root(lattice), inPut.root(lattice), vanillaPut.root(lattice));
+    }
+
+    /**
+     * Computes the price of a double, single or window barrier option with a rebate. A knock-out only
+     * inducts the corridor; a knock-in = vanilla - knock-out also carries the vanilla over the whole lattice.
+     * @param isCall true for a call, false for a put
+     * @param isOut true for knock-out (dies when a barrier is hit), false for knock-in (starts to live then)
+     * @param S0 initial stock price, strictly between the barriers
+     * @param K strike price
+     * @param L lower barrier, hit at S <= L on a monitoring step, 0 for none
+     * @param U upper barrier, hit at S >= U on a monitoring step, Double.POSITIVE_INFINITY for none
+     * @param rebate paid at maturity if a knock-out was knocked out or a knock-in was never knocked in
+     * @param r risk-free interest rate
+     * @param T time to maturity
+     * @param sigma volatility
+     * @param N number of steps
+     * @param monitoringSteps lattice steps (0..N) at which the barriers are checked, null for every step,
+     *                        see window for a partial-time barrier
+     * @return option price
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public static double calculateDoubleBarrierOption(boolean isCall, boolean isOut, double S0, double K,
+                                                      double L, double U, double rebate, double r, double T,
+                                                      double sigma, int N, int[] monitoringSteps) {
+        Lattice lattice = Lattice.corridor(S0, L, U, r, T, sigma, N, monitoringSteps);
+        Band out = new Band(lattice, payoff(isCall, K), true);
+        Band vanilla = isOut ? null : new Band(lattice, payoff(isCall, K), false);
+        // Pays 1 at maturity if no barrier was hit, only needed for the rebate
+        Band survival = rebate == 0 ? null : new Band(lattice, S -> 1.0, true);
+
+        for (int j = N - 1; j >= 0; j--) {
+            out.step(lattice, j);
+            if (vanilla != null) {
+                vanilla.step(lattice, j);
+            }
+            if (survival != null) {
+                survival.step(lattice, j);
+            }
+        }
+
+        double value = isOut ? out.root(lattice) : vanilla.root(lattice) - out.root(lattice);
+        if (survival != null) {
+            double survived = survival.root(lattice);
+            value += rebate * (isOut ? Math.exp(-r * T) - survived : survived);
+        }
+        return value;
+    }
+
+    /**
+     * Monitoring steps of a partial-time barrier that is active from step first to step last (inclusive)
+     */
+    public static int[] window(int first, int last) {
+        if (first < 0 || last < first) {
+            throw new IllegalArgumentException("Window must satisfy 0 <= first <= last. Got: " + first + ".." + last);
+        }
+        int[] steps = new int[last - first + 1];
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = first + i;
+        }
+        return steps;
+    }
+
+    private static DoubleUnaryOperator payoff(boolean isCall, double K) {
+        return isCall ? S -> Math.max(S - K, 0) : S -> Math.max(K - S, 0);
+    }
+
+    /**
+     * Number of layers between S0 and the barrier: the largest k with |ln(B/S0)|/k >= sigma*sqrt(h)
+     * (between two barriers for S0 = L and B = U)
+     * @throws IllegalArgumentException if the barrier is closer to S0 than one layer of sigma*sqrt(h)
+     */
+    public static int barrierLayer(double S0, double B, double sigma, double h) {
+        double distance = Math.abs(Math.log(B / S0));
+        int k = (int) Math.floor(distance / (sigma * Math.sqrt(h)) * (1 + 1e-12));
+        if (k < 1) {
+            throw new IllegalArgumentException("Barrier is closer to S0 than one layer, increase N. Got: |ln(B/S0)| = "
+                    + distance + " < sigma*sqrt(h) = " + sigma * Math.sqrt(h));
+        }
+        return k;
+    }
+
+    /**
+     * Smallest number of steps for which the barrier is at least one layer of sigma*sqrt(T/N) from S0
+     * @throws IllegalArgumentException if the barrier equals S0
+     */
+    public static int minimumSteps(double S0, double B, double sigma, double T) {
+        double distance = Math.abs(Math.log(B / S0));
+        if (!(distance > 0)) {
+            throw new IllegalArgumentException("Barrier must differ from S0. Got: " + B);
+        }
+        double steps = Math.ceil(T * sigma * sigma / (distance * distance));
+        return (int) Math.min(Math.max(steps, 1), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Flags of the monitored steps 0..N, all steps for a null schedule
+     */
+    static boolean[] monitoringSchedule(int N, int[] monitoringSteps) {
+        boolean[] monitored = new boolean[N + 1];
+        if (monitoringSteps == null) {
+            Arrays.fill(monitored, true);
+            return monitored;
+        }
+        for (int step : monitoringSteps) {
+            if (step < 0 || step > N) {
+                throw new IllegalArgumentException("Monitoring step must be in 0..N. Got: " + step);
+            }
+            monitored[step] = true;
+        }
+        return monitored;
+    }
+
+    /**
+     * Weight of the barrier node at each monitored step. Between two monitored neighbour steps the barrier
+     * approximates continuous monitoring and the value at B is 0. At an isolated monitoring date the value
+     * jumps at B, and the node on the barrier gets the midpoint of the jump, half its continuation value,
+     * which turns the O(u) error of knocking the whole node into an O(u^2) one.
+     */
+    static double[] barrierWeights(boolean[] monitored) {
+        int N = monitored.length - 1;
+        double[] weight = new double[N + 1];
+        for (int j = 0; j <= N; j++) {
+            boolean continuous = (j > 0 && monitored[j - 1]) || (j < N && monitored[j + 1]);
+            weight[j] = continuous ? 0.0 : 0.5;
+        }
+        return weight;
+    }
+
+    /**
+     * One induction step over rows from..to, the rows of next outside [lo, hi] are zero
+     */
+    static void step(double[] next, double[] current, int lo, int hi, int from, int to,
+                     double dqu, double dq0, double dqd) {
+        // Interior rows read only rows inside the band
+        int a = Math.max(from, lo + 1);
+        int b = Math.min(to, hi - 1);
+        if (a <= b) {
+            StencilKernel.european(next, current, a, b, dqu, dq0, dqd);
+        } else {
+            a = to + 1;
+            b = to;
+        }
+        for (int i = from; i < a; i++) {
+            current[i] = edge(next, i, lo, hi, dqu, dq0, dqd);
+        }
+        for (int i = Math.max(b + 1, a); i <= to; i++) {
+            current[i] = edge(next, i, lo, hi, dqu, dq0, dqd);
+        }
+    }
+
+    private static double edge(double[] next, int i, int lo, int hi, double dqu, double dq0, double dqd) {
+        double up = i - 1 >= lo && i - 1 <= hi ? next[i - 1] : 0.0;
+        double middle = i >= lo && i <= hi ? next[i] : 0.0;
+        double down = i + 1 >= lo && i + 1 <= hi ? next[i + 1] : 0.0;
+        return dqu * up + dq0 * middle + dqd * down;
+    }
+
+    /**
+     * Node-aligned lattice: stretch, discounted probabilities, barrier rows and monitoring.
+     * Row i holds S0*exp((c + shift - i)u) with the root row c = N+MARGIN, rows 0..2(N+MARGIN); at step j
+     * the rows c-MARGIN-j..c+MARGIN+j are reachable, MARGIN extra rows on each side for the interpolation
+     * at the root.
+     */
+    private static final class Lattice {
+        // Rows computed at the root on each side of c
+        static final int MARGIN = 2;
+
+        final double S0;
+        final int N;
+        final int c;
+        final double shift;
+        final double u;
+        final double dqu, dq0, dqd;
+        final boolean[] monitored;
+        final double[] barrierWeight;
+        // Rows of the barriers, outside the lattice (never binding) for a missing or unreachable barrier
+        final int lowerRow;
+        final int upperRow;
+
+        private Lattice(double S0, double r, double T, double sigma, int N, int[] monitoringSteps,
+                        double u, double shift, int lowerRow, int upperRow) {
+            double h = T / N;
+            this.S0 = S0;
+            this.N = N;
+            this.c = N + MARGIN;
+            this.shift = shift;
+            this.u = u;
+            double p = sigma * sigma * h / (2 * u * u);
+            double[] Q = riskNeutralProbabilities(r, p, h, u);
+
+            double discountFactor = Math.exp(-r * h);
+            this.dqu = Q[0] * discountFactor;
+            this.dq0 = Q[1] * discountFactor;
+            this.dqd = Q[2] * discountFactor;
+
+            this.monitored = monitoringSchedule(N, monitoringSteps);
+            this.barrierWeight = barrierWeights(monitored);
+            this.lowerRow = lowerRow;
+            this.upperRow = upperRow;
+        }
+
+        /**
+         * One barrier k layers from S0, S0 on the root row
+         */
+        static Lattice single(boolean isDown, double S0, double B, double r, double T, double sigma, int N,
+                              int[] monitoringSteps) {
+            validate(S0, T, N);
+            if (isDown ? !(B > 0 && B < S0) : !(B > S0)) {
+                throw new IllegalArgumentException("Barrier must be " + (isDown ? "in (0, S0)" : "above S0")
+                        + " for " + (isDown ? "a down" : "an up") + " barrier. Got: " + B);
+            }
+            int k = barrierLayer(S0, B, sigma, T / N);
+            double u = Math.abs(Math.log(B / S0)) / k;
+            int c = N + MARGIN;
+            return new Lattice(S0, r, T, sigma, N, monitoringSteps, u, 0.0,
+                    isDown ? c + k : Integer.MAX_VALUE, isDown ? Integer.MIN_VALUE : c - k);
+        }
+
+        /**
+         * Lower and/or upper barrier. With both the corridor is m layers wide and S0 sits at the
+         * fractional row c + shift, |shift| <= 1/2.
+         */
+        static Lattice corridor(double S0, double L, double U, double r, double T, double sigma, int N,
+                                int[] monitoringSteps) {
+            validate(S0, T, N);
+            boolean hasLower = L > 0;
+            boolean hasUpper = U < Double.POSITIVE_INFINITY;
+            if (!hasLower && !hasUpper) {
+                throw new IllegalArgumentException("At least one barrier is needed. Got: L = " + L + ", U = " + U);
+            }
+            if (!(L < S0 && S0 < U)) {
+                throw new IllegalArgumentException("S0 must lie strictly between the barriers. Got: " + L + " < " + S0 + " < " + U);
+            }
+            if (!hasLower || !hasUpper) {
+                return single(hasLower, S0, hasLower ? L : U, r, T, sigma, N, monitoringSteps);
+            }
+
+            int m = barrierLayer(L, U, sigma, T / N);
+            double u = Math.log(U / L) / m;
+            // U is y layers above S0; the upper row is the nearest row to that, S0 is shifted by the rest
+            double y = Math.log(U / S0) / u;
+            long layers = Math.round(y);
+            double shift = y - layers;
+            int c = N + MARGIN;
+            return new Lattice(S0, r, T, sigma, N, monitoringSteps, u, shift,
+                    (int) Math.min(c - layers + m, Integer.MAX_VALUE), (int) Math.max(c - layers, Integer.MIN_VALUE));
+        }
+
+        private static void validate(double S0, double T, int N) {
+            if (S0 <= 0) {
+                throw new IllegalArgumentException("Initial stock price S0 must be positive. Got: " + S0);
+            }
+            if (T <= 0) {
+                throw new IllegalArgumentException("Time to maturity T must be positive. Got: " + T);
+            }
+            if (N < 1) {
+                throw new IllegalArgumentException("Number of steps N must be positive. Got: " + N);
+            }
+        }
+
+        /**
+         * Number of rows of the lattice
+         */
+        int rows() {
+            return 2 * c + 1;
+        }
+
+        /**
+         * Stock price of a row
+         */
+        double price(int row) {
+            return S0 * Math.exp((c + shift - row) * u);
+        }
+
+        /**
+         * Cuts the rows beyond the barriers from [from, to], the barrier rows themselves stay
+         */
+        int cutFrom(int from) {
+            return Math.max(from, upperRow);
+        }
+
+        int cutTo(int to) {
+            return Math.min(to, lowerRow);
+        }
+    }
+
+    /**
+     * Value vector of one payoff with the band [lo, hi] of rows that can be non-zero
+     */
+    private static final class Band {
+        final boolean knockOut;
+        // Knocked state of a knock-in, null otherwise
+        final Band knocked;
+        double[] next, current;
+        int lo, hi;
+
+        /**
+         * Terminal payoff
+         * @param knockOut cut the rows beyond the barriers at the monitoring steps, false for the vanilla
+         */
+        Band(Lattice lattice, DoubleUnaryOperator payoff, boolean knockOut) {
+            int rows = lattice.rows();
+            this.knockOut = knockOut;
+            this.knocked = null;
+            this.next = new double[rows];
+            this.current = new double[rows];
+
+            lo = rows;
+            hi = -1;
+            for (int i = 0; i < rows; i++) {
+                next[i] = payoff.applyAsDouble(lattice.price(i));
+                if (next[i] > 0) {
+                    lo = Math.min(lo, i);
+                    hi = Math.max(hi, i);
+                }
+            }
+            if (knockOut && lattice.monitored[lattice.N]) {
+                lo = lattice.cutFrom(lo);
+                hi = lattice.cutTo(hi);
+                weighBarriers(lattice, next, lattice.N, lo, hi);
+            }
+        }
+
+        /**
+         * Not-yet-knocked state of a knock-in, zero until a monitoring step knocks it in
+         * @param knocked knocked state (the vanilla), stepped before this band at every step
+         */
+        Band(Lattice lattice, Band knocked) {
+            int rows = lattice.rows();
+            this.knockOut = false;
+            this.knocked = knocked;
+            this.next = new double[rows];
+            this.current = new double[rows];
+
+            lo = rows;
+            hi = -1;
+            if (lattice.monitored[lattice.N]) {
+                knockIn(lattice, next, lattice.N, lo, hi);
+            }
+        }
+
+        /**
+         * Steps from j+1 to j, an empty band stays empty unless it is knocked in
+         */
+        void step(Lattice lattice, int j) {
+            boolean cut = knockOut && lattice.monitored[j];
+            boolean knock = knocked != null && lattice.monitored[j];
+            if (lo > hi && !knock) {
+                return;
+            }
+
+            int from = Math.max(lattice.c - Lattice.MARGIN - j, lo - 1);
+            int to = Math.min(lattice.c + Lattice.MARGIN + j, hi + 1);
+            if (cut) {
+                from = lattice.cutFrom(from);
+                to = lattice.cutTo(to);
+            }
+            if (lo > hi) {
+                // Nothing to continue, only the knocked-in rows
+                from = to + 1;
+            }
+            if (from <= to) {
+                Barrier.step(next, current, lo, hi, from, to, lattice.dqu, lattice.dq0, lattice.dqd);
+                if (cut) {
+                    weighBarriers(lattice, current, j, from, to);
+                }
+            }
+
+            lo = from;
+            hi = to;
+            if (knock) {
+                knockIn(lattice, current, j, from, to);
+            }
+            double[] temp = next;
+            next = current;
+            current = temp;
+        }
+
+        /**
+         * Knocks in at monitoring step j: the rows beyond the barriers take the knocked value, the barrier
+         * row (1 - w) times it plus w times its own continuation, where the knock-out keeps w times its
+         * continuation. Widens the band from the continued rows [from, to] (empty if from > to) to them.
+         */
+        private void knockIn(Lattice lattice, double[] values, int j, int from, int to) {
+            int top = lattice.c - Lattice.MARGIN - j;
+            int bottom = lattice.c + Lattice.MARGIN + j;
+            double weight = lattice.barrierWeight[j];
+            boolean above = lattice.upperRow >= top;
+            boolean below = lattice.lowerRow <= bottom;
+            int newLo = from, newHi = to;
+            if (from > to) {
+                newLo = Integer.MAX_VALUE;
+                newHi = Integer.MIN_VALUE;
+            }
+            if (above) {
+                newLo = Math.min(newLo, top);
+                newHi = Math.max(newHi, Math.min(lattice.upperRow, bottom));
+            }
+            if (below) {
+                newLo = Math.min(newLo, Math.max(lattice.lowerRow, top));
+                newHi = Math.max(newHi, bottom);
+            }
+            if (newLo > newHi) {
+                return;
+            }
+
+            // Rows of the new band without a continuation value
+            for (int i = newLo; i <= newHi; i++) {
+                if (i < from || i > to) {
+                    values[i] = 0.0;
+                }
+            }
+            if (above) {
+                for (int i = top, end = Math.min(lattice.upperRow, bottom); i <= end; i++) {
+                    double value = knocked.value(i);
+                    values[i] = i == lattice.upperRow ? (1 - weight) * value + weight * values[i] : value;
+                }
+            }
+            if (below) {
+                for (int i = Math.max(lattice.lowerRow, top); i <= bottom; i++) {
+                    double value = knocked.value(i);
+                    values[i] = i == lattice.lowerRow ? (1 - weight) * value + weight * values[i] : value;
+                }
+            }
+            lo = newLo;
+            hi = newHi;
+        }
+
+        private static void weighBarriers(Lattice lattice, double[] values, int j, int from, int to) {
+            if (lattice.lowerRow >= from && lattice.lowerRow <= to) {
+                values[lattice.lowerRow] *= lattice.barrierWeight[j];
+            }
+            if (lattice.upperRow >= from && lattice.upperRow <= to) {
+                values[lattice.upperRow] *= lattice.barrierWeight[j];
+            }
+        }
+
+        /**
+         * Value at S0 once the induction reached step 0. S0 lies at the fractional row c + shift; the value is
+         * interpolated from the (up to) three usable rows nearest to it among c-MARGIN..c+MARGIN. When the
+         * barriers are monitored at step 0 the value has a kink (continuous) or a jump (isolated date) at a
+         * barrier, so only the rows strictly inside the corridor are used, plus the barrier row itself with its
+         * value 0 when the monitoring is continuous. Next to a barrier this interpolates one-sided and keeps
+         * the O(u^2) error of the quadratic.
+         */
+        double root(Lattice lattice) {
+            int c = lattice.c;
+            double position = c + lattice.shift;
+            boolean cut = (knockOut || knocked != null) && lattice.monitored[0];
+            if (lattice.shift == 0 && (!cut || (c > lattice.upperRow && c < lattice.lowerRow))) {
+                return value(c);
+            }
+
+            // Usable rows, nearest to S0 first
+            int[] rows = new int[2 * Lattice.MARGIN + 1];
+            int count = 0;
+            for (int i = c - Lattice.MARGIN; i <= c + Lattice.MARGIN; i++) {
+                boolean inside = i > lattice.upperRow && i < lattice.lowerRow;
+                boolean barrier = i == lattice.upperRow || i == lattice.lowerRow;
+                if (!cut || inside || (barrier && lattice.barrierWeight[0] == 0)) {
+                    rows[count++] = i;
+                }
+            }
+            for (int a = 1; a < count; a++) {
+                int row = rows[a];
+                int b = a - 1;
+                while (b >= 0 && Math.abs(rows[b] - position) > Math.abs(row - position)) {
+                    rows[b + 1] = rows[b];
+                    b--;
+                }
+                rows[b + 1] = row;
+            }
+
+            // Lagrange polynomial through the nearest rows
+            int nodes = Math.min(count, 3);
+            double result = 0.0;
+            for (int a = 0; a < nodes; a++) {
+                double weight = 1.0;
+                for (int b = 0; b < nodes; b++) {
+                    if (b != a) {
+                        weight *= (position - rows[b]) / (rows[a] - rows[b]);
+                    }
+                }
+                result += weight * value(rows[a]);
+            }
+            return result;
+        }
+
+        private double value(int row) {
+            return row >= lo && row <= hi ? next[row] : 0.0;
+        }
+    }
 }
@@ -1,4 +1,174 @@
 package com.bsc.thesis.Options.exotic;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing.riskNeutralProbabilities;
+
+/**
+ * Cliquet - Cliquet option on the trinomial model
+ * Port of Simulation/Exotic/Cliquet/CliquetPriceTrinomial.m and RecursionCliquetTrinomial.m.
+ * Every reset period has N steps, and the local return of a period only depends on its net number
+ * of up moves d: Z = max(Floc, min(Cloc, exp(d*u) - 1)). All d >= alpha give Cloc and all d <= beta
+ * give Floc, so a period has at most alpha - beta + 1 distinct local returns.
+ * Instead of recursing path by path over the periods, the distribution of the sum of the local
+ * returns is built period by period on a grid of small buckets. Sums falling into the same bucket are
+ * merged into their probability weighted mean, which keeps the mean exact and only affects the
+ * price where the payoff has a kink inside a bucket.
+ * Sums that can no longer end above Fglob (or below Cglob) are absorbed, like the pruning of the
+ * MATLAB recursion. The payoff is max(Fglob, min(Cglob, sum of Z)) per unit notional.
+ */
 public class Cliquet {
+
+    // Sums within 1/SUM_BUCKETS of the range of the local returns are merged into one state,
+    // which bounds the number of states after i periods by i * SUM_BUCKETS + 1
+    private static final int SUM_BUCKETS = 2000;
+    private static final double MIN_RESOLUTION = 1e-12;
+
+    /**
+     * Computes the price of a cliquet option per unit notional
+     * @param Floc local floor
+     * @param Cloc local cap
+     * @param Fglob global floor
+     * @param Cglob global cap (may be Double.POSITIVE_INFINITY)
+     * @param T time to maturity
+     * @param m number of reset periods
+     * @param N number of steps in each reset period
+     * @param sigma volatility
+     * @param r risk-free interest rate
+     * @param p probability parameter
+     * @return cliquet option price per unit notional
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public static double calculateCliquetOption(double Floc, double Cloc, double Fglob, double Cglob,
+                                                double T, int m, int N, double sigma, double r, double p) {
+        if (m < 1) {
+            throw new IllegalArgumentException("Number of reset periods m must be positive. Got: " + m);
+        }
+        if (N < 1) {
+            throw new IllegalArgumentException("Number of steps N must be positive. Got: " + N);
+        }
+        if (T <= 0) {
+            throw new IllegalArgumentException("Time to maturity T must be positive. Got: " + T);
+        }
+        if (Floc > Cloc || Fglob > Cglob) {
+            throw new IllegalArgumentException("Floors must not exceed caps. Got: local [" + Floc + ", " + Cloc
+                    + "], global [" + Fglob + ", " + Cglob + "]");
+        }
+
+        double h = T / (N * m);
+        double u = sigma * Math.sqrt(h / (2 * p));
+        double[] Q = riskNeutralProbabilities(r, p, h, u);
+
+        double[][] local = localReturns(Floc, Cloc, u, N, Q);
+        double[] Z = local[0];
+        double[] P = local[1];
+
+        // Width of the buckets in which sums are merged
+        double minZ = Double.POSITIVE_INFINITY;
+        double maxZ = Double.NEGATIVE_INFINITY;
+        for (double z : Z) {
+            minZ = Math.min(minZ, z);
+            maxZ = Math.max(maxZ, z);
+        }
+        final double resolution = Math.max((maxZ - minZ) / SUM_BUCKETS, MIN_RESOLUTION);
+
+        // Distribution of the sum of local returns on the buckets round(sum / resolution),
+        // kept as probability * sum and probability per bucket, absorbed mass is kept apart
+        double[] weightedSums = {0.0};
+        double[] probabilities = {1.0};
+        double absorbedValue = 0.0;
+
+        for (int i = 1; i <= m; i++) {
+            final int remaining = m - i;
+            final long nextOffset = Math.round(i * minZ / resolution);
+            final int size = (int) (Math.round(i * maxZ / resolution) - nextOffset + 1);
+            double[] nextWeightedSums = new double[size];
+            double[] nextProbabilities = new double[size];
+
+            for (int b = 0; b < probabilities.length; b++) {
+                if (probabilities[b] == 0.0) {
+                    continue;
+                }
+                // Probability weighted mean of the merged sums
+                final double current = weightedSums[b] / probabilities[b];
+                for (int z = 0; z < Z.length; z++) {
+                    double sum = current + Z[z];
+                    double probability = probabilities[b] * P[z];
+
+                    if (remaining > 0 && sum + remaining * Cloc <= Fglob) {
+                        // No possibility to go higher than Fglob
+                        absorbedValue += probability * Fglob;
+                    } else if (remaining > 0 && sum + remaining * Floc >= Cglob) {
+                        // No possibility to go lower than Cglob
+                        absorbedValue += probability * Cglob;
+                    } else {
+                        int bucket = (int) Math.min(Math.max(Math.round(sum / resolution) - nextOffset, 0), size - 1);
+                        nextWeightedSums[bucket] += probability * sum;
+                        nextProbabilities[bucket] += probability;
+                    }
+                }
+            }
+
+            weightedSums = nextWeightedSums;
+            probabilities = nextProbabilities;
+        }
+
+        double value = absorbedValue;
+        for (int b = 0; b < probabilities.length; b++) {
+            if (probabilities[b] > 0.0) {
+                value += probabilities[b] * Math.max(Fglob, Math.min(Cglob, weightedSums[b] / probabilities[b]));
+            }
+        }
+
+        return value * Math.exp(-r * T);
+    }
+
+    /**
+     * Distinct local returns of a reset period and their probabilities
+     * @return {returns, probabilities}
+     */
+    private static double[][] localReturns(double Floc, double Cloc, double u, int N, double[] Q) {
+        // Distribution of the net number of up moves d = -N..N after N steps
+        double[] current = new double[2 * N + 1];
+        double[] next = new double[2 * N + 1];
+        current[N] = 1.0;
+        for (int step = 1; step <= N; step++) {
+            for (int d = -step; d <= step; d++) {
+                double fromDown = d - 1 >= -(step - 1) ? current[d - 1 + N] : 0.0;
+                double fromSame = Math.abs(d) <= step - 1 ? current[d + N] : 0.0;
+                double fromUp = d + 1 <= step - 1 ? current[d + 1 + N] : 0.0;
+                next[d + N] = Q[0] * fromDown + Q[1] * fromSame + Q[2] * fromUp;
+            }
+            double[] temp = current;
+            current = next;
+            next = temp;
+        }
+
+        // Levels at or above alpha are capped, at or below beta floored (a bound of -1 or less never binds)
+        int alpha = Cloc > -1 ? (int) Math.min(N + 1, Math.ceil(Math.log(Cloc + 1) / u)) : -N;
+        int beta = Floc > -1 ? (int) Math.max(-N - 1, Math.floor(Math.log(Floc + 1) / u)) : -N - 1;
+
+        List<double[]> returns = new ArrayList<>();
+        double capped = 0.0;
+        double floored = 0.0;
+        for (int d = -N; d <= N; d++) {
+            if (d >= alpha) {
+                capped += current[d + N];
+            } else if (d <= beta) {
+                floored += current[d + N];
+            } else {
+                returns.add(new double[]{Math.max(Floc, Math.min(Cloc, Math.exp(d * u) - 1)), current[d + N]});
+            }
+        }
+        returns.add(new double[]{Floc, floored});
+        returns.add(new double[]{Cloc, capped});
+
+        double[][] local = new double[2][returns.size()];
+        for (int k = 0; k < returns.size(); k++) {
+            local[0][k] = returns.get(k)[0];
+            local[1][k] = returns.get(k)[1];
+        }
+        return local;
+    }
 }
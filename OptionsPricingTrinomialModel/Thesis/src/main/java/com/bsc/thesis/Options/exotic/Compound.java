@@ -1,16 +1,182 @@
 package com.bsc.thesis.Options.exotic;
 
+import com.bsc.thesis.Options.vanilla.utils.StockLattice;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.function.DoubleUnaryOperator;
 
-import static com.bsc.thesis.Options.vanilla.utils.StockPricesTree.generateStockPrices;
+import static com.bsc.thesis.Options.vanilla.utils.ParallelInduction.induct;
+import static com.bsc.thesis.Options.vanilla.utils.StockPricesTree.generateStockLattice;
 import static com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing.priceOption;
+import static com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing.riskNeutralProbabilities;
 
 public class Compound {
     public static double calculateCompoundOption(boolean isCall, boolean onCall, double S0, double K1, double K2, double T1, double T2, double r, double sigma, double p, int N) {
 
-        return euCompoundTri(isCall, onCall, S0, T1, T2, N, K1, K2, p, r, sigma);
+        return euCompoundLattice(isCall, onCall, S0, T1, T2, N, K1, K2, p, r, sigma);
+    }
+
+    /**
+     * Computes the price of a European compound option (CoC, CoP, PoC, PoP) on a single lattice
+     * Since the lattice recombines, the underlying option values at every T1 node come out of
+     * one backward induction from T2 to T1 on the lattice with N steps. The compound payoff is
+     * then applied to these values and inducted from T1 to the root on the same rows,
+     * so no tree is built per T1 node like in {@link #euCompoundTri}.
+     * Unlike euCompoundTri, a put compound pays K1 where the underlying option is worthless.
+     * @param isCall true for a call on the underlying option, false for a put
+     * @param onCall true if the underlying option is a call, false for a put
+     * @param S0 initial stock price
+     * @param T1 expiry of the compound option
+     * @param T2 expiry of the underlying option
+     * @param N number of steps up to T2
+     * @param K1 strike of the compound option
+     * @param K2 strike of the underlying option
+     * @param p probability parameter
+     * @param r risk-free interest rate
+     * @param sigma volatility
+     * @return compound option price
+     */
+    public static double euCompoundLattice(boolean isCall, boolean onCall, double S0, double T1, double T2, int N,
+                                           double K1, double K2, double p, double r, double sigma) {
+        // Checking input parameters
+        if (r < 0 || T1 < 0 || T2 < 0 || K1 < 0 || K2 < 0 || T1 > T2) {
+            throw new IllegalArgumentException("Error: invalid input parameters");
+        }
+
+        double h = T2 / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+
+        // Number of steps for compound option
+        int N1 = (int) Math.round(T1 * N / T2);
+
+        double[] Q = riskNeutralProbabilities(r, p, h, u);
+        double discountFactor = Math.exp(-r * h);
+        double dqu = discountFactor * Q[0];
+        double dq0 = discountFactor * Q[1];
+        double dqd = discountFactor * Q[2];
+
+        StockLattice S = generateStockLattice(S0, N, u);
+
+        // Underlying option payoff at T2
+        double[] values = new double[S.getRows()];
+        for (int i = 0; i < values.length; i++) {
+            double x = S.rowPrice(i);
+            values[i] = onCall ? Math.max(0, x - K2) : Math.max(0, K2 - x);
+        }
+
+        // Underlying option values at T1
+        values = induct(values, N, N, N1, dqu, dq0, dqd, null);
+
+        // Compound option payoff at T1
+        double[] compound = new double[values.length];
+        for (int i = N - N1; i <= N + N1; i++) {
+            compound[i] = isCall ? Math.max(0, values[i] - K1) : Math.max(0, K1 - values[i]);
+        }
+
+        // Backward induction for compound option
+        return induct(compound, N, N1, 0, dqu, dq0, dqd, null)[N];
+    }
+
+    /**
+     * Prices compound options over a grid of compound strikes and first expiries
+     * on the same underlying option (K2, T2). The underlying option is inducted only once,
+     * from T2 down to the smallest first expiry, and its values are kept at every step
+     * that is a first expiry of the grid. The outer compound inductions start from these
+     * stored values, one per (K1, T1) pair, one after the other; each of them is tiled
+     * over the pool of ParallelInduction.
+     * @param isCall true for a call on the underlying option, false for a put
+     * @param onCall true if the underlying option is a call, false for a put
+     * @param S0 initial stock price
+     * @param K1s strikes of the compound option
+     * @param T1s expiries of the compound option (at most T2)
+     * @param K2 strike of the underlying option
+     * @param T2 expiry of the underlying option
+     * @param r risk-free interest rate
+     * @param sigma volatility
+     * @param p probability parameter
+     * @param N number of steps up to T2
+     * @return prices[k][t] for strike K1s[k] and expiry T1s[t]
+     */
+    public static double[][] calculateCompoundGrid(boolean isCall, boolean onCall, double S0, double[] K1s, double[] T1s,
+                                                   double K2, double T2, double r, double sigma, double p, int N) {
+        // Checking input parameters
+        if (K1s == null || T1s == null) {
+            throw new IllegalArgumentException("Error: strikes and expiries must be non-null");
+        }
+        if (r < 0 || T2 < 0 || K2 < 0) {
+            throw new IllegalArgumentException("Error: invalid input parameters");
+        }
+        for (double K1 : K1s) {
+            if (K1 < 0) {
+                throw new IllegalArgumentException("Compound strike K1 must be non-negative. Got: " + K1);
+            }
+        }
+        for (double T1 : T1s) {
+            if (T1 < 0 || T1 > T2) {
+                throw new IllegalArgumentException("Compound expiry T1 must be in [0, T2]. Got: " + T1);
+            }
+        }
+
+        double h = T2 / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+
+        double[] Q = riskNeutralProbabilities(r, p, h, u);
+        double discountFactor = Math.exp(-r * h);
+        double dqu = discountFactor * Q[0];
+        double dq0 = discountFactor * Q[1];
+        double dqd = discountFactor * Q[2];
+
+        // Number of steps for every compound expiry, inducted from the latest one down
+        int[] steps = new int[T1s.length];
+        TreeMap<Integer, double[]> underlying = new TreeMap<>(Comparator.reverseOrder());
+        for (int t = 0; t < T1s.length; t++) {
+            steps[t] = (int) Math.round(T1s[t] * N / T2);
+            underlying.put(steps[t], null);
+        }
+
+        StockLattice S = generateStockLattice(S0, N, u);
+
+        // Underlying option payoff at T2
+        double[] values = new double[S.getRows()];
+        for (int i = 0; i < values.length; i++) {
+            double x = S.rowPrice(i);
+            values[i] = onCall ? Math.max(0, x - K2) : Math.max(0, K2 - x);
+        }
+
+        // Single underlying induction, keeping the values at every compound expiry
+        int level = N;
+        for (Map.Entry<Integer, double[]> entry : underlying.entrySet()) {
+            values = induct(values, N, level, entry.getKey(), dqu, dq0, dqd, null);
+            level = entry.getKey();
+            entry.setValue(values.clone());
+        }
+
+        // Outer compound induction for every (K1, T1) pair. The pairs run serially, the
+        // parallelism is inside induct, so no second pool is stacked around its own
+        double[][] prices = new double[K1s.length][T1s.length];
+        for (int k = 0; k < K1s.length; k++) {
+            double K1 = K1s[k];
+            for (int t = 0; t < T1s.length; t++) {
+                int N1 = steps[t];
+                double[] und = underlying.get(N1);
+
+                double[] compound = new double[und.length];
+                for (int i = N - N1; i <= N + N1; i++) {
+                    compound[i] = isCall ? Math.max(0, und[i] - K1) : Math.max(0, K1 - und[i]);
+                }
+                prices[k][t] = induct(compound, N, N1, 0, dqu, dq0, dqd, null)[N];
+            }
+        }
+
+        return prices;
     }
 
+    /**
+     * Reference compound option pricer, prices the underlying option on a separate tree
+     * from T1 to T2 for every node at T1, O(N^3)
+     */
     public static double euCompoundTri(boolean isCall, boolean onCall, double S0, double T1, double T2, int N,
                                        double K1, double K2, double p, double r, double sigma) {
         // Checking input parameters
@@ -45,19 +211,19 @@ public class Compound {
         }
 
         // Build stock price tree for compound option period (T1)
-        double[][] S1 = generateStockPrices(S0, N1, u);
-        int M = S1.length; // Number of rows in the tree
+        StockLattice S1 = generateStockLattice(S0, N1, u);
+        int M = S1.getRows(); // Number of rows in the tree
 
         double[][] P = new double[M][N1 + 1]; // Compound option prices
         double[] undPrices = new double[M];
 
         // For each node at time T1, calculate the underlying option price
         for (int i = 0; i < M; i++) {
-            double stockPriceAtT1 = S1[i][N1];
+            double stockPriceAtT1 = S1.price(N1, i);
             if (stockPriceAtT1 > 0) {
-                // Build tree for underlying option from T1 to T2
-                double[][] S2 = generateStockPrices(stockPriceAtT1, N2, u);
-                double underlyingOptionPrice = priceOption(S2, payoffUnderlying, r, p, h, u);
+                // Build lattice for underlying option from T1 to T2
+                StockLattice S2 = generateStockLattice(stockPriceAtT1, N2, u);
+                double underlyingOptionPrice = priceOption(S2, payoffUnderlying, r, p, h);
                 undPrices[i] = underlyingOptionPrice;
             }
         }
@@ -81,7 +247,7 @@ public class Compound {
         // Backward induction for compound option
         for (int j = N1 - 1; j >= 0; j--) {
             for (int i = 0; i < M; i++) {
-                if (S1[i][j] > 0) {
+                if (S1.price(j, i) > 0) {
                     // Get prices from next time step (up, middle, down)
                     double upPrice = 0, middlePrice = 0, downPrice = 0;
 
@@ -1,4 +1,77 @@
 package com.bsc.thesis.Options.exotic;
 
+import static com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing.riskNeutralProbabilities;
+
+/**
+ * Lookback - Floating strike lookback options on the trinomial lattice
+ * With the stock as numeraire the value of a floating strike lookback is S_t * W(t, k), where
+ * k is the number of lattice levels between the spot and its running extreme (min for the call,
+ * max for the put). So the path dependence reduces to one integer state, and W is inducted
+ * backwards under the share measure with probabilities
+ * qu* = qu * e^u * disc, q0* = q0 * disc, qd* = qd * e^-u * disc.
+ * At step j only k = 0..j is possible, giving O(N^2) time and O(N) memory.
+ */
 public class Lookback {
+
+    /**
+     * Computes the price of a floating strike lookback option, the running extreme includes S0
+     * @param isCall true for a call (S_T - min S), false for a put (max S - S_T)
+     * @param S0 initial stock price
+     * @param r risk-free interest rate
+     * @param T time to maturity
+     * @param sigma volatility
+     * @param p probability parameter
+     * @param N number of steps
+     * @return lookback option price
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public static double calculateLookbackOption(boolean isCall, double S0, double r, double T,
+                                                 double sigma, double p, int N) {
+        if (S0 <= 0) {
+            throw new IllegalArgumentException("Initial stock price S0 must be positive. Got: " + S0);
+        }
+        if (T <= 0) {
+            throw new IllegalArgumentException("Time to maturity T must be positive. Got: " + T);
+        }
+        if (N < 1) {
+            throw new IllegalArgumentException("Number of steps N must be positive. Got: " + N);
+        }
+
+        double h = T / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+        double[] Q = riskNeutralProbabilities(r, p, h, u);
+
+        // Share measure probabilities, discounting included
+        double discountFactor = Math.exp(-r * h);
+        double squ = Q[0] * Math.exp(u) * discountFactor;
+        double sq0 = Q[1] * discountFactor;
+        double sqd = Q[2] * Math.exp(-u) * discountFactor;
+
+        // Moves towards the running extreme shrink k, moves away from it grow k
+        double qAway = isCall ? squ : sqd;
+        double qTowards = isCall ? sqd : squ;
+
+        double[] next = new double[N + 1];
+        double[] current = new double[N + 1];
+
+        // Terminal values relative to S_T: 1 - min/S_T for the call, max/S_T - 1 for the put
+        for (int k = 0; k <= N; k++) {
+            next[k] = isCall ? 1 - Math.exp(-u * k) : Math.exp(u * k) - 1;
+        }
+
+        // Backward induction
+        for (int j = N - 1; j >= 0; j--) {
+            // At the extreme a move towards it resets the extreme, so k stays 0
+            current[0] = qAway * next[1] + (sq0 + qTowards) * next[0];
+            for (int k = 1; k <= j; k++) {
+                current[k] = qAway * next[k + 1] + sq0 * next[k] + qTowards * next[k - 1];
+            }
+
+            double[] temp = next;
+            next = current;
+            current = temp;
+        }
+
+        return S0 * next[0];
+    }
 }
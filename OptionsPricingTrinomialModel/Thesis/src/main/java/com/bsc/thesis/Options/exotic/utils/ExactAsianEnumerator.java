@@ -0,0 +1,178 @@
+package com.bsc.thesis.Options.exotic.utils;
+
+import com.bsc.thesis.Options.vanilla.utils.StockLattice;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static com.bsc.thesis.Options.vanilla.utils.StockPricesTree.generateStockLattice;
+import static com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing.riskNeutralProbabilities;
+
+/**
+ * ExactAsianEnumerator - Exact arithmetic Asian option price by enumerating all 3^N trinomial paths
+ * Gives the same value as {@link Utils#recursiveAsian}, but a path only carries its level,
+ * running sum and probability on an explicit stack that is allocated once per task,
+ * so nothing is allocated per node. The top levels of the 3-way tree are split into
+ * fork/join tasks, every task enumerates its subtree sequentially and the partial sums
+ * are merged in a fixed order, so the result does not depend on the scheduling.
+ * Meant as the regression reference for the polynomial Asian engines, up to N of about 20.
+ */
+public class ExactAsianEnumerator {
+
+    private static final ForkJoinPool pool = new ForkJoinPool();
+
+    /** Level moves of up, same and down */
+    private static final int[] MOVES = {1, 0, -1};
+
+    /**
+     * Computes the exact price of an arithmetic Asian option, averaging over steps 1..N
+     * @param isCall true for a call, false for a put
+     * @param S0 initial stock price
+     * @param K strike price
+     * @param r risk-free interest rate
+     * @param T time to maturity
+     * @param sigma volatility
+     * @param p probability parameter
+     * @param N number of steps
+     * @return asian option price
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public static double price(boolean isCall, double S0, double K, double r, double T, double sigma, double p, int N) {
+        if (N < 1) {
+            throw new IllegalArgumentException("Number of steps N must be positive. Got: " + N);
+        }
+        if (T <= 0) {
+            throw new IllegalArgumentException("Time to maturity T must be positive. Got: " + T);
+        }
+
+        double h = T / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+        return Math.exp(-r * T) * expectedPayoff(isCall, S0, K, N, u, riskNeutralProbabilities(r, p, h, u));
+    }
+
+    /**
+     * Undiscounted expected payoff over all paths
+     * @param Q risk-neutral probabilities {qu, q0, qd}
+     */
+    static double expectedPayoff(boolean isCall, double S0, double K, int N, double u, double[] Q) {
+        StockLattice S = generateStockLattice(S0, N, u);
+        double[] prices = new double[2 * N + 1];
+        for (int level = -N; level <= N; level++) {
+            prices[level + N] = S0 * S.power(level);
+        }
+
+        // Enough subtrees for every worker, leaving the last step to the sequential loop
+        int splitDepth = 0;
+        long tasks = 1;
+        while (splitDepth < N - 1 && tasks < 8L * pool.getParallelism()) {
+            splitDepth++;
+            tasks *= 3;
+        }
+
+        Enumeration enumeration = new Enumeration(isCall, K, N, prices, Q, splitDepth);
+        return pool.invoke(new Subtree(enumeration, 0, 0, 0.0, 1.0));
+    }
+
+    private static final class Enumeration {
+        final boolean isCall;
+        final double K;
+        final int N;
+        final double[] prices;
+        final double[] Q;
+        final int splitDepth;
+
+        Enumeration(boolean isCall, double K, int N, double[] prices, double[] Q, int splitDepth) {
+            this.isCall = isCall;
+            this.K = K;
+            this.N = N;
+            this.prices = prices;
+            this.Q = Q;
+            this.splitDepth = splitDepth;
+        }
+
+        double payoff(double sum) {
+            double averagePrice = sum / N;
+            return isCall ? Math.max(averagePrice - K, 0) : Math.max(K - averagePrice, 0);
+        }
+
+        /**
+         * Depth-first enumeration of the subtree below a node, with an explicit stack
+         */
+        double enumerate(int depth, int level, double sum, double probability) {
+            if (depth == N) {
+                return probability * payoff(sum);
+            }
+
+            final int size = N - depth;
+            final int[] levels = new int[size];
+            final double[] sums = new double[size];
+            final double[] probabilities = new double[size];
+            final int[] next = new int[size];
+
+            levels[0] = level;
+            sums[0] = sum;
+            probabilities[0] = probability;
+            next[0] = 0;
+
+            double V = 0.0;
+            int sp = 0;
+            while (sp >= 0) {
+                final int l = levels[sp];
+                final double s = sums[sp];
+                final double P = probabilities[sp];
+
+                if (depth + sp == N - 1) {
+                    // Children are the leaves
+                    for (int i = 0; i < 3; i++) {
+                        V += P * Q[i] * payoff(s + prices[l + MOVES[i] + N]);
+                    }
+                    sp--;
+                } else if (next[sp] == 3) {
+                    sp--;
+                } else {
+                    final int i = next[sp]++;
+                    final int child = l + MOVES[i];
+                    sp++;
+                    levels[sp] = child;
+                    sums[sp] = s + prices[child + N];
+                    probabilities[sp] = P * Q[i];
+                    next[sp] = 0;
+                }
+            }
+            return V;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Subtree extends RecursiveTask<Double> {
+        private final Enumeration enumeration;
+        private final int depth, level;
+        private final double sum, probability;
+
+        Subtree(Enumeration enumeration, int depth, int level, double sum, double probability) {
+            this.enumeration = enumeration;
+            this.depth = depth;
+            this.level = level;
+            this.sum = sum;
+            this.probability = probability;
+        }
+
+        @Override
+        protected Double compute() {
+            if (depth >= enumeration.splitDepth) {
+                return enumeration.enumerate(depth, level, sum, probability);
+            }
+
+            Subtree[] children = new Subtree[3];
+            for (int i = 0; i < 3; i++) {
+                int child = level + MOVES[i];
+                children[i] = new Subtree(enumeration, depth + 1, child,
+                        sum + enumeration.prices[child + enumeration.N], probability * enumeration.Q[i]);
+            }
+            invokeAll(children);
+
+            // Merge in a fixed order
+            return children[0].join() + children[1].join() + children[2].join();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.bsc.thesis.Options.exotic.utils;
+
+import static com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing.riskNeutralProbabilities;
+
+/**
+ * GeometricAsian - Exact geometric-average Asian option on the trinomial lattice
+ * The geometric average over steps 1..N is S0*exp(u*L/N) with the integer log-sum
+ * L = x_1 + ... + x_N of the levels of the path, so paths with the same log-sum recombine.
+ * Writing the levels as sums of moves, L = sum over t of (N - t + 1) * e_t with independent
+ * moves e_t in {+1, 0, -1}, so the distribution of L is the convolution of N three-point
+ * distributions. It is kept as one dense array over -N(N+1)/2..N(N+1)/2, only the reachable
+ * window is updated at every step, which gives the exact price in O(N^3) time and O(N^2) memory.
+ */
+public class GeometricAsian {
+
+    /**
+     * Computes the exact price of a geometric Asian option, averaging over steps 1..N
+     * @param isCall true for a call, false for a put
+     * @param S0 initial stock price
+     * @param K strike price
+     * @param r risk-free interest rate
+     * @param T time to maturity
+     * @param sigma volatility
+     * @param p probability parameter
+     * @param N number of steps
+     * @return geometric asian option price
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public static double price(boolean isCall, double S0, double K, double r, double T, double sigma, double p, int N) {
+        if (N < 1) {
+            throw new IllegalArgumentException("Number of steps N must be positive. Got: " + N);
+        }
+        if (S0 <= 0) {
+            throw new IllegalArgumentException("Initial stock price S0 must be positive. Got: " + S0);
+        }
+        if (K < 0) {
+            throw new IllegalArgumentException("Strike price K must be non-negative. Got: " + K);
+        }
+        if (T <= 0) {
+            throw new IllegalArgumentException("Time to maturity T must be positive. Got: " + T);
+        }
+
+        double h = T / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+        double[] Q = riskNeutralProbabilities(r, p, h, u);
+
+        double[] distribution = logSumDistribution(N, Q);
+        final int maxSum = N * (N + 1) / 2;
+
+        double V = 0.0;
+        for (int L = -maxSum; L <= maxSum; L++) {
+            double P = distribution[L + maxSum];
+            if (P == 0.0) {
+                continue;
+            }
+            double averagePrice = S0 * Math.exp(u * L / N);
+            double payoff = isCall ? Math.max(averagePrice - K, 0) : Math.max(K - averagePrice, 0);
+            V += P * payoff;
+        }
+
+        return Math.exp(-r * T) * V;
+    }
+
+    /**
+     * Distribution of the integer log-sum L of the levels x_1..x_N
+     * @param N number of steps
+     * @param Q risk-neutral probabilities {qu, q0, qd}
+     * @return probabilities of L = -N(N+1)/2..N(N+1)/2, shifted by N(N+1)/2
+     */
+    public static double[] logSumDistribution(int N, double[] Q) {
+        final int maxSum = N * (N + 1) / 2;
+        double[] current = new double[2 * maxSum + 1];
+        double[] next = new double[2 * maxSum + 1];
+        current[maxSum] = 1.0;
+
+        // Reachable window is -reach..reach
+        int reach = 0;
+        for (int t = 1; t <= N; t++) {
+            final int w = N - t + 1; // move at step t shifts the level of steps t..N
+            final int newReach = reach + w;
+            for (int L = -newReach; L <= newReach; L++) {
+                double fromUp = L - w >= -reach && L - w <= reach ? current[L - w + maxSum] : 0.0;
+                double fromSame = L >= -reach && L <= reach ? current[L + maxSum] : 0.0;
+                double fromDown = L + w >= -reach && L + w <= reach ? current[L + w + maxSum] : 0.0;
+                next[L + maxSum] = Q[0] * fromUp + Q[1] * fromSame + Q[2] * fromDown;
+            }
+
+            double[] temp = current;
+            current = next;
+            next = temp;
+            reach = newReach;
+        }
+
+        return current;
+    }
+}
@@ -0,0 +1,259 @@
+package com.bsc.thesis.Options.exotic.utils;
+
+import com.bsc.thesis.Options.vanilla.utils.StockLattice;
+
+import static com.bsc.thesis.Options.vanilla.utils.StockPricesTree.generateStockLattice;
+import static com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing.riskNeutralProbabilities;
+
+/**
+ * RepresentativeAverageAsian - Arithmetic Asian option on the trinomial lattice with representative averages
+ * The running sum of a path is not recombining, so {@link Utils#recursiveAsian} has to walk all 3^N paths.
+ * Here every node (step j, k net up moves) only keeps a fixed number of representative running sums,
+ * spaced logarithmically over the window of likely sums of the paths reaching the node.
+ * The window is clipped to the smallest and the largest possible sum, both closed form: the largest
+ * sum goes up as long as possible and then down to k, the smallest one goes down first, and the sums
+ * are read from prefix sums of exp(m*u). Spacing over the extreme sums only would be far too coarse for large N.
+ * In the backward induction the sum of a child node is interpolated between its representatives,
+ * which costs O(N^2 * averages) time and O(N * averages) memory.
+ * Like {@link com.bsc.thesis.Options.exotic.Asian#calculateAsianOption}, the average runs over steps 1..N without S0.
+ */
+public class RepresentativeAverageAsian {
+
+    /**
+     * Width of the window of representative sums in standard deviations of the running sum.
+     * Sums outside the window are so unlikely that they are clamped to its ends.
+     */
+    public static final double SUM_DEVIATIONS = 6.0;
+
+    /** Largest number of steps for which the exact price is computed as a reference */
+    public static final int EXACT_MAX_STEPS = 12;
+
+    public static class Result {
+        /** Price from the representative averages */
+        public final double price;
+        /** Exact price by path enumeration, NaN if N > EXACT_MAX_STEPS */
+        public final double exactPrice;
+        /**
+         * |price - exactPrice| if the exact price is known, otherwise |price - finer| where finer is the
+         * price with twice as many representative averages. The interpolation error shrinks with more
+         * averages, so this is roughly the error of price itself, not a bound
+         */
+        public final double errorEstimate;
+
+        public Result(double price, double exactPrice, double errorEstimate) {
+            this.price = price;
+            this.exactPrice = exactPrice;
+            this.errorEstimate = errorEstimate;
+        }
+    }
+
+    /**
+     * Computes the price of an arithmetic Asian option with representative averages
+     * @param isCall true for a call, false for a put
+     * @param S0 initial stock price
+     * @param K strike price
+     * @param r risk-free interest rate
+     * @param T time to maturity
+     * @param sigma volatility
+     * @param p probability parameter
+     * @param N number of steps
+     * @param averages number of representative averages per node (at least 4)
+     * @return price with an error estimate, for N > EXACT_MAX_STEPS the lattice is induced a second
+     *         time with 2 * averages representatives
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public static Result price(boolean isCall, double S0, double K, double r, double T, double sigma,
+                               double p, int N, int averages) {
+        if (N < 1) {
+            throw new IllegalArgumentException("Number of steps N must be positive. Got: " + N);
+        }
+        if (averages < 4) {
+            throw new IllegalArgumentException("Number of representative averages must be at least 4. Got: " + averages);
+        }
+        if (K < 0) {
+            throw new IllegalArgumentException("Strike price K must be non-negative. Got: " + K);
+        }
+        if (T <= 0) {
+            throw new IllegalArgumentException("Time to maturity T must be positive. Got: " + T);
+        }
+
+        double h = T / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+
+        double price = induct(isCall, S0, K, r, p, h, u, N, averages);
+
+        double exactPrice = Double.NaN;
+        double errorEstimate;
+        if (N <= EXACT_MAX_STEPS) {
+            exactPrice = exactPrice(isCall, S0, K, r, p, h, u, N);
+            errorEstimate = Math.abs(price - exactPrice);
+        } else {
+            errorEstimate = Math.abs(price - induct(isCall, S0, K, r, p, h, u, N, 2 * averages));
+        }
+
+        return new Result(price, exactPrice, errorEstimate);
+    }
+
+    private static double induct(boolean isCall, double S0, double K, double r, double p,
+                                 double h, double u, int N, int M) {
+        final StockLattice S = generateStockLattice(S0, N, u);
+        final double[] Q = riskNeutralProbabilities(r, p, h, u);
+        final double discountFactor = Math.exp(-r * h);
+        final double dqu = discountFactor * Q[0];
+        final double dq0 = discountFactor * Q[1];
+        final double dqd = discountFactor * Q[2];
+
+        // prefix[m + N + 1] = sum of exp(l*u), l = -N..m
+        final double[] prefix = new double[2 * N + 2];
+        for (int m = -N; m <= N; m++) {
+            prefix[m + N + 1] = prefix[m + N] + S.power(m);
+        }
+
+        // Two slabs of (2N+1) nodes x M representatives, node-major
+        double[] nextValues = new double[(2 * N + 1) * M];
+        double[] nextSums = new double[(2 * N + 1) * M];
+        double[] values = new double[(2 * N + 1) * M];
+        double[] sums = new double[(2 * N + 1) * M];
+
+        // Payoff at maturity
+        for (int k = -N; k <= N; k++) {
+            final int base = (k + N) * M;
+            fillSums(nextSums, base, M, S0, prefix, u, p, N, N, k);
+            for (int m = 0; m < M; m++) {
+                double average = nextSums[base + m] / N;
+                nextValues[base + m] = isCall ? Math.max(average - K, 0) : Math.max(K - average, 0);
+            }
+        }
+
+        // Backward induction
+        for (int j = N - 1; j >= 1; j--) {
+            for (int k = -j; k <= j; k++) {
+                final int base = (k + N) * M;
+                fillSums(sums, base, M, S0, prefix, u, p, N, j, k);
+                for (int m = 0; m < M; m++) {
+                    values[base + m] = 0.0;
+                }
+                addChild(values, sums, base, M, dqu, nextValues, nextSums, (k + 1 + N) * M, S0 * S.power(k + 1));
+                addChild(values, sums, base, M, dq0, nextValues, nextSums, (k + N) * M, S0 * S.power(k));
+                addChild(values, sums, base, M, dqd, nextValues, nextSums, (k - 1 + N) * M, S0 * S.power(k - 1));
+            }
+
+            double[] temp = nextValues;
+            nextValues = values;
+            values = temp;
+            temp = nextSums;
+            nextSums = sums;
+            sums = temp;
+        }
+
+        // Root, the running sum is still empty
+        return dqu * interpolate(nextValues, nextSums, (1 + N) * M, M, S0 * S.power(1))
+                + dq0 * interpolate(nextValues, nextSums, N * M, M, S0)
+                + dqd * interpolate(nextValues, nextSums, (N - 1) * M, M, S0 * S.power(-1));
+    }
+
+    /**
+     * Representative running sums of node (j, k), log-spaced over the likely sums of the node.
+     * Given the node, the level sum of a path is close to normal with mean k(j+1)/2 and variance
+     * 2p(j^3-j)/12 (a random walk bridge), so the window is that mean +- SUM_DEVIATIONS standard
+     * deviations mapped to exp(u * level sum / j), clipped to the smallest and largest possible sum.
+     * The extreme paths move straight up (down) as far as they can and then move to k.
+     */
+    private static void fillSums(double[] sums, int base, int M, double S0, double[] prefix,
+                                 double u, double p, int N, int j, int k) {
+        // Largest sum: up as long as possible, then down to k
+        final int top = (k + j) / 2;
+        final double max = S0 * (powerSum(prefix, N, 1, top) + powerSum(prefix, N, k, k + j - top - 1));
+
+        // Smallest sum: down as long as possible, then up to k
+        final int bottom = (j - k) / 2;
+        final double min = S0 * (powerSum(prefix, N, -bottom, -1) + powerSum(prefix, N, k - j + bottom + 1, k));
+
+        final double mean = k * (j + 1) / 2.0;
+        final double deviation = SUM_DEVIATIONS * Math.sqrt(2 * p * ((double) j * j * j - j) / 12);
+        double lo = Math.max(min, S0 * j * Math.exp(u * (mean - deviation) / j));
+        double hi = Math.min(max, S0 * j * Math.exp(u * (mean + deviation) / j));
+        if (hi <= lo) {
+            lo = min;
+            hi = max;
+        }
+
+        final double ratio = Math.pow(hi / lo, 1.0 / (M - 1));
+        sums[base] = lo;
+        for (int m = 1; m < M - 1; m++) {
+            sums[base + m] = sums[base + m - 1] * ratio;
+        }
+        sums[base + M - 1] = hi;
+    }
+
+    /**
+     * Sum of exp(l*u) for l = a..b
+     */
+    private static double powerSum(double[] prefix, int N, int a, int b) {
+        return a > b ? 0.0 : prefix[b + N + 1] - prefix[a + N];
+    }
+
+    /**
+     * Adds q times the interpolated child values for every representative of the parent.
+     * The parent sums are increasing, so the bracket in the child only moves forward.
+     */
+    private static void addChild(double[] values, double[] sums, int base, int M, double q,
+                                 double[] childValues, double[] childSums, int childBase, double childPrice) {
+        int c = 0;
+        for (int m = 0; m < M; m++) {
+            final double A = sums[base + m] + childPrice;
+            while (c < M - 2 && childSums[childBase + c + 1] < A) {
+                c++;
+            }
+            values[base + m] += q * interpolate(childValues, childSums, childBase, M, c, A);
+        }
+    }
+
+    /**
+     * Interpolation of the values of a node at running sum A
+     */
+    private static double interpolate(double[] values, double[] sums, int base, int M, double A) {
+        int c = 0;
+        while (c < M - 2 && sums[base + c + 1] < A) {
+            c++;
+        }
+        return interpolate(values, sums, base, M, c, A);
+    }
+
+    /**
+     * Quadratic interpolation through the three representatives closest to A, where
+     * sums[base + c] <= A <= sums[base + c + 1]. Linear interpolation of the convex
+     * value function overestimates at every step and the error adds up over N steps,
+     * the quadratic one keeps the price stable for large N. Sums outside the window are clamped.
+     */
+    private static double interpolate(double[] values, double[] sums, int base, int M, int c, double A) {
+        final double min = sums[base];
+        final double max = sums[base + M - 1];
+        if (A <= min || max <= min) {
+            return values[base];
+        }
+        if (A >= max) {
+            return values[base + M - 1];
+        }
+
+        // Third point on the side of the nearer representative
+        int a = A - sums[base + c] < sums[base + c + 1] - A ? c - 1 : c;
+        a = base + Math.min(Math.max(a, 0), M - 3);
+
+        final double x0 = sums[a];
+        final double x1 = sums[a + 1];
+        final double x2 = sums[a + 2];
+        return values[a] * (A - x1) * (A - x2) / ((x0 - x1) * (x0 - x2))
+                + values[a + 1] * (A - x0) * (A - x2) / ((x1 - x0) * (x1 - x2))
+                + values[a + 2] * (A - x0) * (A - x1) / ((x2 - x0) * (x2 - x1));
+    }
+
+    /**
+     * Exact price by enumerating all 3^N paths
+     */
+    private static double exactPrice(boolean isCall, double S0, double K, double r, double p,
+                                     double h, double u, int N) {
+        double[] Q = riskNeutralProbabilities(r, p, h, u);
+        return Math.exp(-r * h * N) * ExactAsianEnumerator.expectedPayoff(isCall, S0, K, N, u, Q);
+    }
+}
@@ -0,0 +1,163 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * AdaptiveMonteCarlo - Monte Carlo that runs until a confidence interval or a time budget is reached
+ * Paths are simulated in rounds of blocks on the engine's pool. The first round is a single block that
+ * measures the cost of a block. After every round the block statistics are merged and the half-width of
+ * the confidence interval is compared with the target. The size of the next round is predicted from the
+ * current variance (error ~ 1/sqrt(n)) and cut to what fits in the remaining time, measured from the cost
+ * of the blocks so far. Once the deadline has passed no further block is started, the blocks after the
+ * first one that was not started are dropped and the run stops. Block b always uses the b-th stream split
+ * from the seed and the blocks are merged in the fixed tree of MonteCarloEngine, so for a given number of
+ * blocks the result is the same on any machine; only the time budget makes the stopping point depend on speed.
+ */
+public class AdaptiveMonteCarlo {
+
+    /** Confidence level used by the pricers that do not take one */
+    public static final double DEFAULT_CONFIDENCE = 0.95;
+
+    /** Path limit used by the pricers that do not take one */
+    public static final long DEFAULT_MAX_PATHS = 1L << 40;
+
+    /**
+     * Smallest number of blocks per round. It fixes the stopping points, so it must not depend on the
+     * machine; the pool only decides how the blocks of a round are scheduled
+     */
+    public static final int MIN_ROUND_BLOCKS = 8;
+
+    /**
+     * Estimate together with the reached accuracy
+     */
+    public static class Result {
+        /** Discounted price estimate */
+        public final double price;
+        /** Standard error of the price estimate */
+        public final double standardError;
+        /** Half-width of the confidence interval, z * standardError */
+        public final double halfWidth;
+        /** Number of simulated paths */
+        public final long paths;
+        /** Variance reduction factor against plain sampling, see MonteCarloResult */
+        public final double varianceReductionFactor;
+        /** Wall-clock time spent in milliseconds */
+        public final double elapsedMillis;
+        /** True if the target half-width was reached, false if the budget ran out first */
+        public final boolean converged;
+
+        Result(MonteCarloResult estimate, double halfWidth, double elapsedMillis, boolean converged) {
+            this.price = estimate.price;
+            this.standardError = estimate.standardError;
+            this.halfWidth = halfWidth;
+            this.paths = estimate.paths;
+            this.varianceReductionFactor = estimate.varianceReductionFactor;
+            this.elapsedMillis = elapsedMillis;
+            this.converged = converged;
+        }
+    }
+
+    /**
+     * @param model dynamics and monitoring dates
+     * @param seed seed of the root random generator
+     * @param functional creates the payoff accumulator of a block
+     * @param antithetic simulate antithetic pairs
+     * @param control control variate, or null for none
+     * @param targetHalfWidth stop when the discounted confidence half-width is at most this (0 to use the whole budget)
+     * @param confidence confidence level of the interval, in (0, 1)
+     * @param timeBudgetMillis wall-clock budget, no block after the first one starts once it is spent
+     * @param maxPaths hard limit on the number of paths
+     * @return estimate, reached half-width and whether the target was met
+     */
+    public static Result price(GeometricBrownianMotion model, long seed, Supplier<? extends PathFunctional> functional,
+                               boolean antithetic, ControlVariate control, double targetHalfWidth, double confidence,
+                               long timeBudgetMillis, long maxPaths) {
+        if (!(targetHalfWidth >= 0)) {
+            throw new IllegalArgumentException("Target half-width must be non-negative. Got: " + targetHalfWidth);
+        }
+        if (!(confidence > 0 && confidence < 1)) {
+            throw new IllegalArgumentException("Confidence level must be in (0, 1). Got: " + confidence);
+        }
+        if (timeBudgetMillis <= 0) {
+            throw new IllegalArgumentException("Time budget must be positive. Got: " + timeBudgetMillis);
+        }
+        if (maxPaths < (antithetic ? 4 : 2)) {
+            throw new IllegalArgumentException("Maximum number of paths must be at least " + (antithetic ? 4 : 2) + ". Got: " + maxPaths);
+        }
+
+        final long start = System.nanoTime();
+        final long budget = timeBudgetMillis * 1_000_000L;
+        final long deadline = start + budget;
+        final double z = Normal.inverseCdf(0.5 + 0.5 * confidence);
+        final long maxSamples = antithetic ? maxPaths / 2 : maxPaths;
+        final int maxBlocks = MonteCarloEngine.blockCount(maxSamples);
+
+        SplittableRandom root = new SplittableRandom(seed);
+        List<RunningCovariance> statistics = new ArrayList<>();
+        List<RunningStatistics> single = new ArrayList<>();
+
+        MonteCarloResult estimate = null;
+        double halfWidth = Double.POSITIVE_INFINITY;
+        // One block to measure the cost before the first full round
+        int round = 1;
+
+        while (round > 0) {
+            // Streams are split in block order, block b gets the same stream in every run
+            int first = statistics.size();
+            SplittableRandom[] streams = MonteCarloEngine.splitStreams(root, round);
+            RunningCovariance[] roundStatistics = new RunningCovariance[round];
+            RunningStatistics[] roundSingle = new RunningStatistics[round];
+
+            MonteCarloEngine.runBlocks(round, block -> {
+                // The probe always runs, every later block only before the deadline
+                if (first + block > 0 && System.nanoTime() - deadline > 0) {
+                    return;
+                }
+                roundStatistics[block] = new RunningCovariance();
+                roundSingle[block] = new RunningStatistics();
+                long samples = MonteCarloEngine.blockPaths(maxSamples, first + block);
+                MonteCarloEngine.simulateBlock(model, streams[block], samples, functional, antithetic, control,
+                        roundStatistics[block], roundSingle[block]);
+            });
+            // Only the blocks up to the first skipped one, so the estimate always uses blocks 0..n-1
+            int done = 0;
+            while (done < round && roundStatistics[done] != null) {
+                done++;
+            }
+            statistics.addAll(Arrays.asList(roundStatistics).subList(0, done));
+            single.addAll(Arrays.asList(roundSingle).subList(0, done));
+
+            int blocks = statistics.size();
+            estimate = MonteCarloEngine.estimate(model,
+                    RunningCovariance.reduce(statistics.toArray(new RunningCovariance[0]), 0, blocks),
+                    RunningStatistics.reduce(single.toArray(new RunningStatistics[0]), 0, blocks),
+                    antithetic, control);
+            halfWidth = z * estimate.standardError;
+            if (halfWidth <= targetHalfWidth || done < round) {
+                break;
+            }
+
+            // Blocks needed for the target, at most doubling per round to correct a noisy variance
+            long needed = maxBlocks;
+            if (targetHalfWidth > 0) {
+                double ratio = halfWidth / targetHalfWidth;
+                needed = (long) Math.ceil(blocks * ratio * ratio);
+            }
+            long next = Math.max(MIN_ROUND_BLOCKS, Math.min(needed - blocks, blocks));
+
+            // Blocks that still fit in the budget at the cost measured so far
+            long elapsed = System.nanoTime() - start;
+            double perBlock = (double) elapsed / blocks;
+            long affordable = (long) ((budget - elapsed) / perBlock);
+
+            round = (int) Math.min(Math.min(next, affordable), maxBlocks - blocks);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        return new Result(estimate, halfWidth, elapsed / 1e6, halfWidth <= targetHalfWidth);
+    }
+}
@@ -0,0 +1,88 @@
+package com.bsc.thesis.Options.montecarlo;
+
+/**
+ * BrownianBridge - Builds a Brownian path on the dates 1..steps from normals in order of importance
+ * The first normal fixes the end point, the next ones the midpoints of ever finer intervals, so the
+ * leading coordinates of a low-discrepancy point carry most of the variance of the path.
+ * Time is measured in steps; scale the result by the step volatility.
+ */
+public class BrownianBridge {
+
+    private final int steps;
+    // The k-th normal fixes W at bridgeIndex[k] from its neighbours leftIndex[k] (-1 for time 0) and rightIndex[k]
+    private final int[] bridgeIndex;
+    private final int[] leftIndex;
+    private final int[] rightIndex;
+    private final double[] leftWeight;
+    private final double[] rightWeight;
+    private final double[] stdDev;
+
+    /**
+     * @param steps number of dates (must be positive)
+     */
+    public BrownianBridge(int steps) {
+        if (steps < 1) {
+            throw new IllegalArgumentException("Number of steps must be positive. Got: " + steps);
+        }
+        this.steps = steps;
+        bridgeIndex = new int[steps];
+        leftIndex = new int[steps];
+        rightIndex = new int[steps];
+        leftWeight = new double[steps];
+        rightWeight = new double[steps];
+        stdDev = new double[steps];
+
+        bridgeIndex[0] = steps - 1;
+        leftIndex[0] = -1;
+        rightIndex[0] = -1;
+        stdDev[0] = Math.sqrt(steps);
+
+        // Breadth-first bisection of the intervals (left, right], endpoints already known
+        int[] queueLeft = new int[2 * steps];
+        int[] queueRight = new int[2 * steps];
+        int head = 0, tail = 0;
+        queueLeft[tail] = -1;
+        queueRight[tail++] = steps - 1;
+
+        int k = 1;
+        while (head < tail) {
+            int left = queueLeft[head];
+            int right = queueRight[head++];
+            if (right - left < 2) {
+                continue;
+            }
+            int mid = left + (right - left) / 2;
+            double tl = left + 1, tm = mid + 1, tr = right + 1;
+
+            bridgeIndex[k] = mid;
+            leftIndex[k] = left;
+            rightIndex[k] = right;
+            leftWeight[k] = (tr - tm) / (tr - tl);
+            rightWeight[k] = (tm - tl) / (tr - tl);
+            stdDev[k] = Math.sqrt((tm - tl) * (tr - tm) / (tr - tl));
+            k++;
+
+            queueLeft[tail] = left;
+            queueRight[tail++] = mid;
+            queueLeft[tail] = mid;
+            queueRight[tail++] = right;
+        }
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * @param z independent standard normals, the most important first
+     * @param w output, w[i] = W(i + 1)
+     */
+    public void buildPath(double[] z, double[] w) {
+        w[bridgeIndex[0]] = stdDev[0] * z[0];
+        for (int k = 1; k < steps; k++) {
+            int left = leftIndex[k];
+            double wLeft = left < 0 ? 0.0 : w[left];
+            w[bridgeIndex[k]] = leftWeight[k] * wLeft + rightWeight[k] * w[rightIndex[k]] + stdDev[k] * z[k];
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import java.util.function.Supplier;
+
+/**
+ * ControlVariate - Payoff with a known expectation that is observed on the same paths as the priced payoff
+ * The estimator is mean(Y) - beta (mean(X) - E[X]) with beta = Cov(Y, X) / Var(X) estimated from
+ * the same samples. The factories give the controls of the exotic pricers in closed form under
+ * the dynamics of a GeometricBrownianMotion, with the same monitoring dates.
+ */
+public class ControlVariate {
+
+    private final Supplier<? extends PathFunctional> functional;
+    private final double expectation;
+
+    /**
+     * @param functional creates the control payoff accumulator of a block
+     * @param expectation exact undiscounted expectation of the control payoff
+     */
+    public ControlVariate(Supplier<? extends PathFunctional> functional, double expectation) {
+        this.functional = functional;
+        this.expectation = expectation;
+    }
+
+    public Supplier<? extends PathFunctional> getFunctional() {
+        return functional;
+    }
+
+    public double getExpectation() {
+        return expectation;
+    }
+
+    /**
+     * Vanilla payoff on the last date, undiscounted Black-Scholes expectation
+     */
+    public static ControlVariate european(GeometricBrownianMotion model, boolean isCall, double K) {
+        double T = model.getT();
+        double sigma = model.getSigma();
+        double forward = model.getS0() * Math.exp(model.getR() * T);
+        double expectation = lognormalPayoff(isCall, Math.log(forward) - 0.5 * sigma * sigma * T, sigma * sigma * T, K);
+        return new ControlVariate(() -> new PathFunctionals.European(isCall, K), expectation);
+    }
+
+    /**
+     * Geometric average of the monitoring dates i*T/n, i = 1..n. The log of the average is normal with
+     * mean ln S0 + (r - sigma^2/2) T (n+1)/(2n) and variance sigma^2 T (n+1)(2n+1)/(6n^2).
+     */
+    public static ControlVariate geometricAsian(GeometricBrownianMotion model, boolean isCall, double K) {
+        double n = model.getSteps();
+        double T = model.getT();
+        double sigma = model.getSigma();
+        double mean = Math.log(model.getS0()) + (model.getR() - 0.5 * sigma * sigma) * T * (n + 1) / (2 * n);
+        double variance = sigma * sigma * T * (n + 1) * (2 * n + 1) / (6 * n * n);
+        double expectation = lognormalPayoff(isCall, mean, variance, K);
+        return new ControlVariate(() -> new PathFunctionals.GeometricAsian(isCall, K), expectation);
+    }
+
+    /**
+     * Cliquet without the global floor and cap: S0 times the sum of the locally floored and capped period
+     * returns. With G the period growth factor, E[max(F, min(C, G - 1))] = E[G] - 1 + E[(1 + F - G)+] - E[(G - 1 - C)+].
+     * @param localFloor local floor, -infinity for none
+     * @param localCap local cap, +infinity for none
+     * @param periods number of periods, as in PathFunctionals.Cliquet
+     */
+    public static ControlVariate localCliquet(GeometricBrownianMotion model, double localFloor, double localCap,
+                                              int periods) {
+        final int steps = model.getSteps();
+        if (periods < 1 || periods > steps) {
+            throw new IllegalArgumentException("Number of periods must be between 1 and the number of steps " + steps
+                    + ". Got: " + periods);
+        }
+        if (localFloor > localCap) {
+            throw new IllegalArgumentException("Local floor must not exceed the local cap. Got: " + localFloor + " > " + localCap);
+        }
+
+        // The periods are floor(steps / periods) or one step longer
+        double sum = 0.0;
+        for (int i = 1; i <= periods; i++) {
+            int length = PathFunctionals.Cliquet.resetDate(i, steps, periods) - PathFunctionals.Cliquet.resetDate(i - 1, steps, periods);
+            sum += periodReturn(model, localFloor, localCap, model.dt() * length);
+        }
+        double expectation = model.getS0() * sum;
+        double inf = Double.POSITIVE_INFINITY;
+        return new ControlVariate(() -> new PathFunctionals.Cliquet(localFloor, localCap, -inf, inf, steps, periods), expectation);
+    }
+
+    /**
+     * E[max(F, min(C, G - 1))] for the growth factor G over a period of length dt
+     */
+    private static double periodReturn(GeometricBrownianMotion model, double localFloor, double localCap, double dt) {
+        double sigma = model.getSigma();
+        double mean = (model.getR() - 0.5 * sigma * sigma) * dt;
+        double variance = sigma * sigma * dt;
+
+        double periodReturn = Math.expm1(model.getR() * dt);
+        if (localFloor > -1) {
+            periodReturn += lognormalPayoff(false, mean, variance, 1 + localFloor);
+        }
+        if (localCap < Double.POSITIVE_INFINITY) {
+            periodReturn -= lognormalPayoff(true, mean, variance, 1 + localCap);
+        }
+        return periodReturn;
+    }
+
+    /**
+     * E[(X - K)+] or E[(K - X)+] for X = exp(N(mean, variance))
+     */
+    private static double lognormalPayoff(boolean isCall, double mean, double variance, double K) {
+        double forward = Math.exp(mean + 0.5 * variance);
+        if (variance <= 0) {
+            return isCall ? Math.max(forward - K, 0) : Math.max(K - forward, 0);
+        }
+        double v = Math.sqrt(variance);
+        double d1 = (mean - Math.log(K) + variance) / v;
+        double d2 = d1 - v;
+        return isCall
+                ? forward * Normal.cdf(d1) - K * Normal.cdf(d2)
+                : K * Normal.cdf(-d2) - forward * Normal.cdf(-d1);
+    }
+}
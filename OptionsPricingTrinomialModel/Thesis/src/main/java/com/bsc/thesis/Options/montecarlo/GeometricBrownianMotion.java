@@ -0,0 +1,96 @@
+package com.bsc.thesis.Options.montecarlo;
+
+/**
+ * GeometricBrownianMotion - Risk-neutral Black-Scholes dynamics monitored at the dates i*T/steps, i = 1..steps
+ */
+public class GeometricBrownianMotion {
+
+    private final double S0;
+    private final double r;
+    private final double sigma;
+    private final double T;
+    private final int steps;
+
+    /**
+     * @param S0 initial stock price (must be positive)
+     * @param r risk-free interest rate
+     * @param sigma volatility (must be non-negative)
+     * @param T time to maturity (must be positive)
+     * @param steps number of monitoring dates (must be positive)
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public GeometricBrownianMotion(double S0, double r, double sigma, double T, int steps) {
+        if (S0 <= 0) {
+            throw new IllegalArgumentException("Initial stock price S0 must be positive. Got: " + S0);
+        }
+        if (sigma < 0) {
+            throw new IllegalArgumentException("Volatility sigma must be non-negative. Got: " + sigma);
+        }
+        if (T <= 0) {
+            throw new IllegalArgumentException("Time to maturity T must be positive. Got: " + T);
+        }
+        if (steps < 1) {
+            throw new IllegalArgumentException("Number of steps must be positive. Got: " + steps);
+        }
+        this.S0 = S0;
+        this.r = r;
+        this.sigma = sigma;
+        this.T = T;
+        this.steps = steps;
+    }
+
+    /**
+     * Same dynamics with a different number of monitoring dates
+     */
+    public GeometricBrownianMotion withSteps(int steps) {
+        return new GeometricBrownianMotion(S0, r, sigma, T, steps);
+    }
+
+    public double getS0() {
+        return S0;
+    }
+
+    public double getR() {
+        return r;
+    }
+
+    public double getSigma() {
+        return sigma;
+    }
+
+    public double getT() {
+        return T;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * Length of a step, T/steps
+     */
+    public double dt() {
+        return T / steps;
+    }
+
+    /**
+     * Log drift of a step, (r - sigma^2/2) dt
+     */
+    public double drift() {
+        return (r - 0.5 * sigma * sigma) * dt();
+    }
+
+    /**
+     * Log volatility of a step, sigma sqrt(dt)
+     */
+    public double vol() {
+        return sigma * Math.sqrt(dt());
+    }
+
+    /**
+     * Discount factor to maturity, exp(-rT)
+     */
+    public double discount() {
+        return Math.exp(-r * T);
+    }
+}
@@ -0,0 +1,312 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import java.util.SplittableRandom;
+
+/**
+ * LongstaffSchwartz - Least-squares Monte Carlo for Bermudan and American exercise
+ * The paths are simulated once and kept as one flat primitive array per exercise date (date-major,
+ * float or double), so the backward sweep reads every date as one contiguous column. 1M paths x 50 dates
+ * take 200 MB in float. At every date, going backwards, the realised discounted cash flows of the
+ * in-the-money paths are regressed on polynomials of the spot and of the running average. Each block of
+ * paths accumulates its own normal equations X'X and X'y in a single pass; the block sums are added in
+ * block order and solved by Cholesky. A second pass exercises where the exercise value beats the fitted
+ * continuation value. Blocks use the streams and the fork/join pool of MonteCarloEngine, so the price
+ * does not depend on the number of cores.
+ */
+public class LongstaffSchwartz {
+
+    /**
+     * In-the-money paths needed per regression coefficient; with fewer the fit is mostly noise
+     * and nobody exercises at that date
+     */
+    public static final int MIN_PATHS_PER_COEFFICIENT = 2;
+
+    /**
+     * Value of exercising at a date
+     */
+    @FunctionalInterface
+    public interface ExerciseValue {
+        /**
+         * @param date exercise date 0..steps (0 is today)
+         * @param S stock price at the date
+         * @param average average of the stock prices at the dates 1..date (S0 at date 0)
+         */
+        double value(int date, double S, double average);
+    }
+
+    /**
+     * Vanilla put, max(K - S, 0)
+     */
+    public static ExerciseValue put(double K) {
+        return (date, S, average) -> Math.max(K - S, 0);
+    }
+
+    /**
+     * Vanilla call, max(S - K, 0)
+     */
+    public static ExerciseValue call(double K) {
+        return (date, S, average) -> Math.max(S - K, 0);
+    }
+
+    /**
+     * Asian option exercised on the average so far, max(A - K, 0) or max(K - A, 0)
+     */
+    public static ExerciseValue asian(boolean isCall, double K) {
+        return isCall
+                ? (date, S, average) -> Math.max(average - K, 0)
+                : (date, S, average) -> Math.max(K - average, 0);
+    }
+
+    /**
+     * @param model dynamics, the exercise dates are i*T/steps, i = 1..steps, plus today
+     * @param paths number of paths
+     * @param seed seed of the root random generator
+     * @param exercise exercise value
+     * @param degree total degree of the regression polynomials (1..4)
+     * @param useAverage regress on the running average as well as on the spot
+     * @param singlePrecision store the paths as float instead of double
+     * @return discounted price with the standard error of the in-sample cash flows
+     */
+    public static MonteCarloResult price(GeometricBrownianMotion model, int paths, long seed, ExerciseValue exercise,
+                                         int degree, boolean useAverage, boolean singlePrecision) {
+        if (paths < 2) {
+            throw new IllegalArgumentException("Number of paths must be at least 2. Got: " + paths);
+        }
+        if (degree < 1 || degree > 4) {
+            throw new IllegalArgumentException("Degree must be between 1 and 4. Got: " + degree);
+        }
+        final int steps = model.getSteps();
+        if ((long) paths * steps > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many path values for one array. Got: " + paths + " x " + steps);
+        }
+
+        final double S0 = model.getS0();
+        final double drift = model.drift();
+        final double vol = model.vol();
+        final double df = Math.exp(-model.getR() * model.dt());
+        final Basis basis = new Basis(degree, useAverage, S0);
+        final int k = basis.size;
+
+        // Spot at date t (1..steps) of path p at (t - 1) * paths + p
+        final float[] spotFloat = singlePrecision ? new float[paths * steps] : null;
+        final double[] spotDouble = singlePrecision ? null : new double[paths * steps];
+        // Sum of the spots at the dates 1..t, t moving backwards
+        final double[] sum = new double[paths];
+        // Realised cash flow of each path, discounted to the current date
+        final double[] cash = new double[paths];
+
+        int blocks = MonteCarloEngine.blockCount(paths);
+        SplittableRandom[] streams = MonteCarloEngine.splitStreams(new SplittableRandom(seed), blocks);
+
+        // Forward simulation, with the exercise value at maturity
+        MonteCarloEngine.runBlocks(blocks, block -> {
+            SplittableRandom random = streams[block];
+            int from = block * MonteCarloEngine.BLOCK_SIZE;
+            int to = (int) (from + MonteCarloEngine.blockPaths(paths, block));
+            for (int p = from; p < to; p++) {
+                double S = S0, total = 0.0;
+                for (int t = 1; t <= steps; t++) {
+                    S *= Math.exp(drift + vol * random.nextGaussian());
+                    int index = (t - 1) * paths + p;
+                    if (singlePrecision) {
+                        spotFloat[index] = (float) S;
+                        S = spotFloat[index];
+                    } else {
+                        spotDouble[index] = S;
+                    }
+                    total += S;
+                }
+                sum[p] = total;
+                cash[p] = exercise.value(steps, S, total / steps);
+            }
+        });
+
+        // Backward induction over the exercise dates before maturity
+        double[][] normal = new double[blocks][];
+        for (int t = steps - 1; t >= 1; t--) {
+            final int date = t;
+            final int column = (t - 1) * paths;
+            final int next = t * paths;
+
+            // Pass 1: discount one date, roll the sum back, accumulate X'X and X'y over the in-the-money paths
+            MonteCarloEngine.runBlocks(blocks, block -> {
+                double[] equations = new double[k * (k + 1) / 2 + k + 1];
+                double[] phi = new double[k];
+                int from = block * MonteCarloEngine.BLOCK_SIZE;
+                int to = (int) (from + MonteCarloEngine.blockPaths(paths, block));
+                for (int p = from; p < to; p++) {
+                    cash[p] *= df;
+                    sum[p] -= singlePrecision ? spotFloat[next + p] : spotDouble[next + p];
+                    double S = singlePrecision ? spotFloat[column + p] : spotDouble[column + p];
+                    double average = sum[p] / date;
+                    if (exercise.value(date, S, average) <= 0) {
+                        continue;
+                    }
+                    basis.evaluate(S, average, phi);
+                    double y = cash[p];
+                    int e = 0;
+                    for (int i = 0; i < k; i++) {
+                        double pi = phi[i];
+                        for (int j = i; j < k; j++) {
+                            equations[e++] += pi * phi[j];
+                        }
+                    }
+                    for (int i = 0; i < k; i++) {
+                        equations[e++] += phi[i] * y;
+                    }
+                    equations[e]++;
+                }
+                normal[block] = equations;
+            });
+
+            double[] beta = solve(normal, k);
+            if (beta == null) {
+                continue; // too few in-the-money paths to regress, nobody exercises
+            }
+
+            // Pass 2: exercise where the exercise value beats the fitted continuation value
+            MonteCarloEngine.runBlocks(blocks, block -> {
+                double[] phi = new double[k];
+                int from = block * MonteCarloEngine.BLOCK_SIZE;
+                int to = (int) (from + MonteCarloEngine.blockPaths(paths, block));
+                for (int p = from; p < to; p++) {
+                    double S = singlePrecision ? spotFloat[column + p] : spotDouble[column + p];
+                    double average = sum[p] / date;
+                    double value = exercise.value(date, S, average);
+                    if (value <= 0) {
+                        continue;
+                    }
+                    basis.evaluate(S, average, phi);
+                    double continuation = 0.0;
+                    for (int i = 0; i < k; i++) {
+                        continuation += beta[i] * phi[i];
+                    }
+                    if (value >= continuation) {
+                        cash[p] = value;
+                    }
+                }
+            });
+        }
+
+        RunningStatistics statistics = new RunningStatistics();
+        for (int p = 0; p < paths; p++) {
+            statistics.add(df * cash[p]);
+        }
+
+        // Exercise today if it beats holding
+        double today = exercise.value(0, S0, S0);
+        if (today > statistics.getMean()) {
+            return new MonteCarloResult(today, 0.0, paths);
+        }
+        return new MonteCarloResult(statistics.getMean(), statistics.getStandardError(), paths);
+    }
+
+    /**
+     * Adds the block normal equations in block order and solves them by Cholesky
+     * @return regression coefficients, null if there are fewer than MIN_PATHS_PER_COEFFICIENT * k
+     *         in-the-money paths or the system is singular
+     */
+    private static double[] solve(double[][] blocks, int k) {
+        int size = k * (k + 1) / 2 + k + 1;
+        double[] total = new double[size];
+        for (double[] block : blocks) {
+            for (int i = 0; i < size; i++) {
+                total[i] += block[i];
+            }
+        }
+        if (total[size - 1] < MIN_PATHS_PER_COEFFICIENT * k) {
+            return null;
+        }
+
+        // Unpack the upper triangle of X'X
+        double[][] a = new double[k][k];
+        int e = 0;
+        for (int i = 0; i < k; i++) {
+            for (int j = i; j < k; j++) {
+                a[i][j] = total[e];
+                a[j][i] = total[e];
+                e++;
+            }
+        }
+        double[] b = new double[k];
+        System.arraycopy(total, e, b, 0, k);
+
+        // A = L L'
+        double[][] l = new double[k][k];
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j <= i; j++) {
+                double s = a[i][j];
+                for (int m = 0; m < j; m++) {
+                    s -= l[i][m] * l[j][m];
+                }
+                if (i == j) {
+                    if (!(s > 1e-12 * a[i][i])) {
+                        return null;
+                    }
+                    l[i][i] = Math.sqrt(s);
+                } else {
+                    l[i][j] = s / l[j][j];
+                }
+            }
+        }
+
+        // L z = b, then L' x = z
+        double[] x = new double[k];
+        for (int i = 0; i < k; i++) {
+            double s = b[i];
+            for (int m = 0; m < i; m++) {
+                s -= l[i][m] * x[m];
+            }
+            x[i] = s / l[i][i];
+        }
+        for (int i = k - 1; i >= 0; i--) {
+            double s = x[i];
+            for (int m = i + 1; m < k; m++) {
+                s -= l[m][i] * x[m];
+            }
+            x[i] = s / l[i][i];
+        }
+        return x;
+    }
+
+    /**
+     * Monomials x^i a^j with i + j <= degree of the scaled spot x = S/S0 and average a = A/S0
+     * (of x alone without the average)
+     */
+    private static final class Basis {
+        final int degree;
+        final boolean useAverage;
+        final double scale;
+        final int size;
+
+        Basis(int degree, boolean useAverage, double S0) {
+            this.degree = degree;
+            this.useAverage = useAverage;
+            this.scale = 1.0 / S0;
+            this.size = useAverage ? (degree + 1) * (degree + 2) / 2 : degree + 1;
+        }
+
+        void evaluate(double S, double average, double[] phi) {
+            double x = S * scale;
+            if (!useAverage) {
+                double power = 1.0;
+                for (int i = 0; i <= degree; i++) {
+                    phi[i] = power;
+                    power *= x;
+                }
+                return;
+            }
+            double a = average * scale;
+            int e = 0;
+            double xPower = 1.0;
+            for (int i = 0; i <= degree; i++) {
+                double term = xPower;
+                for (int j = 0; i + j <= degree; j++) {
+                    phi[e++] = term;
+                    term *= a;
+                }
+                xPower *= x;
+            }
+        }
+    }
+}
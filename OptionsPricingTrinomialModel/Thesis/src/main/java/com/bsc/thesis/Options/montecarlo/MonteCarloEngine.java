@@ -0,0 +1,218 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * MonteCarloEngine - Parallel, reproducible Monte Carlo driver
+ * The paths are cut into blocks of BLOCK_SIZE. Every block gets its own SplittableRandom,
+ * split in block order from one root generator seeded with the given seed, so a block
+ * always sees the same random numbers no matter which thread runs it. The blocks run as
+ * fork/join tasks, each one keeps its own Welford statistics, and the block statistics
+ * are combined in a fixed binary tree. The result is bit-identical for any number of cores.
+ */
+public class MonteCarloEngine {
+
+    private static final ForkJoinPool pool = new ForkJoinPool();
+
+    /** Seed used by the pricers that do not take one */
+    public static final long DEFAULT_SEED = 0x5EED_2024_0001L;
+
+    /** Paths per block, the unit of parallel work and of random streams */
+    public static final int BLOCK_SIZE = 4096;
+
+    /**
+     * Prices a path-dependent payoff by plain Monte Carlo. The paths are generated step by step
+     * and fed to one functional per block, so the path loop allocates nothing.
+     * @param model dynamics and monitoring dates
+     * @param paths number of paths
+     * @param seed seed of the root random generator
+     * @param functional creates the payoff accumulator of a block
+     * @return discounted price with standard error
+     */
+    public static MonteCarloResult price(GeometricBrownianMotion model, long paths, long seed,
+                                         Supplier<? extends PathFunctional> functional) {
+        return price(model, paths, seed, functional, false, null);
+    }
+
+    /**
+     * Prices a path-dependent payoff by Monte Carlo with antithetic paths and/or a control variate.
+     * An antithetic pair uses the normals z and -z and counts as one sample with the average payoff.
+     * The control payoff is observed on the same paths; its coefficient beta is the least-squares
+     * slope of the samples, accumulated block by block and merged like the mean.
+     * @param model dynamics and monitoring dates
+     * @param paths number of paths, pairs count as two
+     * @param seed seed of the root random generator
+     * @param functional creates the payoff accumulator of a block
+     * @param antithetic simulate antithetic pairs
+     * @param control control variate, or null for none
+     * @return discounted price, standard error and variance reduction factor against plain sampling
+     */
+    public static MonteCarloResult price(GeometricBrownianMotion model, long paths, long seed,
+                                         Supplier<? extends PathFunctional> functional,
+                                         boolean antithetic, ControlVariate control) {
+        final long samples = antithetic ? paths / 2 : paths;
+        if (samples < 2) {
+            throw new IllegalArgumentException("Number of paths must be at least " + (antithetic ? 4 : 2) + ". Got: " + paths);
+        }
+
+        int blocks = blockCount(samples);
+        SplittableRandom[] streams = splitStreams(new SplittableRandom(seed), blocks);
+        RunningCovariance[] statistics = new RunningCovariance[blocks];
+        RunningStatistics[] single = new RunningStatistics[blocks];
+
+        runBlocks(blocks, block -> {
+            statistics[block] = new RunningCovariance();
+            single[block] = new RunningStatistics();
+            simulateBlock(model, streams[block], blockPaths(samples, block), functional, antithetic, control,
+                    statistics[block], single[block]);
+        });
+
+        return estimate(model, RunningCovariance.reduce(statistics, 0, blocks),
+                RunningStatistics.reduce(single, 0, blocks), antithetic, control);
+    }
+
+    /**
+     * Simulates the samples of one block
+     * @param samples number of samples, antithetic pairs count as one
+     * @param statistics receives (payoff, control payoff) per sample, pairs averaged
+     * @param single receives every single path payoff, for the plain variance
+     */
+    static void simulateBlock(GeometricBrownianMotion model, SplittableRandom random, long samples,
+                              Supplier<? extends PathFunctional> functional, boolean antithetic, ControlVariate control,
+                              RunningCovariance statistics, RunningStatistics single) {
+        final double S0 = model.getS0();
+        final PathGenerator path = new PathGenerator(model, random);
+
+        PathFunctional f = functional.get();
+        PathFunctional fa = antithetic ? functional.get() : null;
+        PathFunctional c = control != null ? control.getFunctional().get() : null;
+        PathFunctional ca = antithetic && control != null ? control.getFunctional().get() : null;
+
+        for (long i = 0; i < samples; i++) {
+            path.start();
+            f.start(S0);
+            if (c != null) {
+                c.start(S0);
+            }
+            if (antithetic) {
+                fa.start(S0);
+                if (ca != null) {
+                    ca.start(S0);
+                }
+            }
+            // The payoff runs the date loop itself, see PathFunctional.simulate
+            f.simulate(path, fa, c, ca);
+
+            double y = f.payoff();
+            double x = c != null ? c.payoff() : 0.0;
+            single.add(y);
+            if (antithetic) {
+                double ya = fa.payoff();
+                single.add(ya);
+                y = 0.5 * (y + ya);
+                x = ca != null ? 0.5 * (x + ca.payoff()) : 0.0;
+            }
+            statistics.add(y, x);
+        }
+    }
+
+    /**
+     * Discounted estimate from the merged statistics of all blocks
+     */
+    static MonteCarloResult estimate(GeometricBrownianMotion model, RunningCovariance total, RunningStatistics single,
+                                     boolean antithetic, ControlVariate control) {
+        long samples = total.getCount();
+        double mean = total.getMeanY();
+        double variance = total.getVarianceY();
+        if (control != null) {
+            mean -= total.getBeta() * (total.getMeanX() - control.getExpectation());
+            variance = total.getResidualVariance();
+        }
+
+        long simulated = single.getCount();
+        double factor = 1.0;
+        if (antithetic || control != null) {
+            // Plain Monte Carlo with the same paths has variance Var(payoff) / simulated
+            double plainVariance = single.getVariance();
+            if (plainVariance > 0) {
+                factor = (plainVariance / simulated) / (variance / samples);
+            }
+        }
+
+        double discount = model.discount();
+        return new MonteCarloResult(discount * mean, discount * Math.sqrt(variance / samples), simulated, factor);
+    }
+
+    /**
+     * Number of blocks needed for the given number of paths
+     */
+    public static int blockCount(long paths) {
+        long blocks = (paths + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        if (blocks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many paths. Got: " + paths);
+        }
+        return (int) blocks;
+    }
+
+    /**
+     * Number of paths of a block, the last block may be partial
+     */
+    public static long blockPaths(long paths, int block) {
+        return Math.min(BLOCK_SIZE, paths - (long) block * BLOCK_SIZE);
+    }
+
+    /**
+     * Independent random streams, split one after the other from the root
+     */
+    public static SplittableRandom[] splitStreams(SplittableRandom root, int count) {
+        SplittableRandom[] streams = new SplittableRandom[count];
+        for (int i = 0; i < count; i++) {
+            streams[i] = root.split();
+        }
+        return streams;
+    }
+
+    /**
+     * Work on one block
+     */
+    @FunctionalInterface
+    public interface BlockTask {
+        void run(int block);
+    }
+
+    /**
+     * Runs the blocks 0..blocks-1 on the engine's fork/join pool and waits for all of them
+     */
+    public static void runBlocks(int blocks, BlockTask task) {
+        if (blocks == 1) {
+            task.run(0);
+        } else {
+            pool.invoke(new BlockRange(task, 0, blocks));
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class BlockRange extends RecursiveAction {
+        private final BlockTask task;
+        private final int lo, hi;
+
+        BlockRange(BlockTask task, int lo, int hi) {
+            this.task = task;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                task.run(lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new BlockRange(task, lo, mid), new BlockRange(task, mid, hi));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.bsc.thesis.Options.montecarlo;
+
+/**
+ * MonteCarloResult - Monte Carlo price together with its statistical error
+ */
+public class MonteCarloResult {
+    /** Discounted price estimate */
+    public final double price;
+    /** Standard error of the price estimate */
+    public final double standardError;
+    /** Number of simulated paths */
+    public final long paths;
+    /**
+     * Variance of plain Monte Carlo with the same number of paths divided by the variance
+     * of this estimate, i.e. how many times more paths plain sampling needs for the same error
+     */
+    public final double varianceReductionFactor;
+
+    public MonteCarloResult(double price, double standardError, long paths) {
+        this(price, standardError, paths, 1.0);
+    }
+
+    public MonteCarloResult(double price, double standardError, long paths, double varianceReductionFactor) {
+        this.price = price;
+        this.standardError = standardError;
+        this.paths = paths;
+        this.varianceReductionFactor = varianceReductionFactor;
+    }
+}
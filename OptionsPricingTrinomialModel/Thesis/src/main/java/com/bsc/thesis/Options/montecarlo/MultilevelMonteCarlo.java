@@ -0,0 +1,433 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * MultilevelMonteCarlo - Giles' multilevel Monte Carlo for discretely monitored path functionals
+ * Level l monitors the dates whose index is a multiple of 2^(Lmax - l), plus maturity, where the finest
+ * level Lmax = ceil(log2 n) is the full schedule of the model. Every grid is a subset of the next finer one,
+ * so a fine path and its coarse path are the same Brownian path observed on fewer dates. The price is
+ * E[P_0] + sum E[P_l - P_(l-1)]; the corrections have small variance and are estimated with few expensive
+ * samples. The number of samples per level minimises the cost for the requested RMSE, and levels are
+ * added until the estimated remaining bias, |E[P_L - P_(L-1)]| / (2^alpha - 1), fits in the error budget.
+ * At the finest level the estimate has no bias at all. The coarsest level is chosen too: when simulating
+ * P_l directly is cheaper than correcting the coarser levels up to l (discontinuous payoffs such as barriers
+ * have slowly decaying corrections), the estimator starts at l and reuses the fine payoffs of that level.
+ */
+public class MultilevelMonteCarlo {
+
+    /** Levels always simulated before the bias test */
+    public static final int MIN_LEVELS = 3;
+
+    /** Samples of a new level */
+    public static final int INITIAL_SAMPLES = 1024;
+
+    /** Share of the squared error given to the bias while levels are still missing */
+    private static final double BIAS_SHARE = 0.25;
+
+    /** Cost of starting a path and evaluating its payoff, in simulated dates */
+    private static final int PATH_COST = 4;
+
+    /**
+     * Samples, statistics and cost of one level
+     */
+    public static class LevelStatistics {
+        /** Level index, 0 is the coarsest grid (maturity only) */
+        public final int level;
+        /** Monitoring dates of the fine path of the level */
+        public final int dates;
+        /** Number of samples of P_l - P_(l-1), of P_l on the coarsest level used */
+        public final long samples;
+        /** Mean of the correction, undiscounted */
+        public final double mean;
+        /** Variance of the correction, undiscounted */
+        public final double variance;
+        /** Simulated dates per sample, the cost model used to allocate the samples */
+        public final int costPerSample;
+        /** Thread time spent on the level in milliseconds */
+        public final double elapsedMillis;
+
+        LevelStatistics(int level, int dates, RunningStatistics statistics, int costPerSample, double elapsedMillis) {
+            this.level = level;
+            this.dates = dates;
+            this.samples = statistics.getCount();
+            this.mean = statistics.getMean();
+            this.variance = statistics.getVariance();
+            this.costPerSample = costPerSample;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    /**
+     * Multilevel estimate and how it was obtained
+     */
+    public static class Result {
+        /** Discounted price estimate */
+        public final double price;
+        /** Standard error of the price estimate */
+        public final double standardError;
+        /** Estimated bias against the full monitoring schedule, 0 if the finest level was used */
+        public final double bias;
+        /** Estimated root mean square error, sqrt(standardError^2 + bias^2) */
+        public final double rmse;
+        /** Total simulated dates over all samples and levels, including levels dropped as too coarse */
+        public final long cost;
+        /** Statistics of the levels of the estimator, coarsest first */
+        public final List<LevelStatistics> levels;
+        /** Wall-clock time spent in milliseconds */
+        public final double elapsedMillis;
+
+        Result(double price, double standardError, double bias, long cost, List<LevelStatistics> levels,
+               double elapsedMillis) {
+            this.price = price;
+            this.standardError = standardError;
+            this.bias = bias;
+            this.rmse = Math.sqrt(standardError * standardError + bias * bias);
+            this.cost = cost;
+            this.levels = Collections.unmodifiableList(levels);
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    /**
+     * @param model dynamics and the full monitoring schedule i*T/steps
+     * @param rmse target root mean square error of the discounted price
+     * @param seed seed of the root random generator
+     * @param functional creates the payoff accumulator of a block; observe gets the index of the date
+     *                   in the full schedule
+     * @return estimate with per-level statistics
+     */
+    public static Result price(GeometricBrownianMotion model, double rmse, long seed,
+                               Supplier<? extends PathFunctional> functional) {
+        if (!(rmse > 0)) {
+            throw new IllegalArgumentException("Target RMSE must be positive. Got: " + rmse);
+        }
+
+        final long start = System.nanoTime();
+        final int maxLevel = 32 - Integer.numberOfLeadingZeros(model.getSteps() - 1);
+        final double discount = model.discount();
+        // The estimator is undiscounted, so is its error target
+        final double epsilon = rmse / discount;
+
+        SplittableRandom root = new SplittableRandom(seed);
+        // Every level simulated so far by index, with the statistics of its correction (used for the decay rates)
+        Level[] all = new Level[maxLevel + 1];
+        // The estimator: the coarsest level used, then the corrections above it
+        List<Level> levels = new ArrayList<>();
+        int L = Math.min(MIN_LEVELS - 1, maxLevel);
+        for (int l = 0; l <= L; l++) {
+            all[l] = new Level(model, l, maxLevel, l == 0, root.split());
+            levels.add(all[l]);
+        }
+
+        // Pilot run: a few samples per level, adding finer levels while the bias estimate is too large,
+        // so the coarsest level can be chosen before the bulk of the samples is spent
+        long[] extra = new long[levels.size()];
+        Arrays.fill(extra, INITIAL_SAMPLES);
+        simulate(model, functional, levels, extra);
+        while (L < maxLevel && remainingBias(all, L) > Math.sqrt(BIAS_SHARE) * epsilon) {
+            L++;
+            all[L] = new Level(model, L, maxLevel, false, root.split());
+            levels.add(all[L]);
+            extra = new long[levels.size()];
+            extra[L - levels.get(0).index] = INITIAL_SAMPLES;
+            simulate(model, functional, levels, extra);
+        }
+        long discardedCost = rebase(model, maxLevel, levels, root);
+        extra = additionalSamples(levels, all, varianceBudget(L, maxLevel, epsilon));
+
+        while (anyPositive(extra)) {
+            simulate(model, functional, levels, extra);
+            discardedCost += rebase(model, maxLevel, levels, root);
+
+            // Optimal samples for the variance budget: N_l ~ sqrt(V_l / C_l) * sum sqrt(V_k C_k)
+            extra = additionalSamples(levels, all, varianceBudget(L, maxLevel, epsilon));
+
+            boolean settled = true;
+            for (int i = 0; i < levels.size(); i++) {
+                if (extra[i] > 0.01 * levels.get(i).statistics.getCount()) {
+                    settled = false;
+                }
+            }
+            if (settled && L < maxLevel && remainingBias(all, L) > Math.sqrt(BIAS_SHARE) * epsilon) {
+                // Add the next finer level, its variance guessed from the decay so far
+                L++;
+                all[L] = new Level(model, L, maxLevel, false, root.split());
+                levels.add(all[L]);
+                extra = additionalSamples(levels, all, varianceBudget(L, maxLevel, epsilon));
+                extra[extra.length - 1] = Math.max(extra[extra.length - 1], INITIAL_SAMPLES);
+            }
+        }
+
+        double price = 0.0, variance = 0.0;
+        long cost = discardedCost;
+        List<LevelStatistics> statistics = new ArrayList<>();
+        for (Level level : levels) {
+            RunningStatistics s = level.statistics;
+            price += s.getMean();
+            variance += s.getVariance() / s.getCount();
+            cost += s.getCount() * level.cost;
+            statistics.add(new LevelStatistics(level.index, level.dates.length, s, level.cost, level.nanos / 1e6));
+        }
+        double bias = L < maxLevel ? remainingBias(all, L) : 0.0;
+
+        return new Result(discount * price, discount * Math.sqrt(variance), discount * bias, cost, statistics,
+                (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * The whole squared error once the finest level is in, otherwise what the bias leaves
+     */
+    private static double varianceBudget(int L, int maxLevel, double epsilon) {
+        return (L == maxLevel ? 1.0 : 1.0 - BIAS_SHARE) * epsilon * epsilon;
+    }
+
+    /**
+     * Moves the coarsest level of the estimator up if simulating that level directly costs less than
+     * the levels below it, sum sqrt(V C) being the cost of the estimator up to a constant.
+     * The fine payoffs of the new coarsest level are its first samples.
+     * @return cost of the samples that are no longer used
+     */
+    private static long rebase(GeometricBrownianMotion model, int maxLevel, List<Level> levels, SplittableRandom root) {
+        for (Level level : levels) {
+            if (level.statistics.getCount() < 2) {
+                return 0;
+            }
+        }
+
+        int count = levels.size();
+        double[] above = new double[count + 1];
+        for (int i = count - 1; i >= 0; i--) {
+            Level level = levels.get(i);
+            above[i] = above[i + 1] + Math.sqrt(level.statistics.getVariance() * level.cost);
+        }
+        int best = 0;
+        double bestCost = above[0];
+        for (int i = 1; i < count; i++) {
+            Level level = levels.get(i);
+            double cost = Math.sqrt(level.fine.getVariance() * (level.dates.length + PATH_COST)) + above[i + 1];
+            if (cost < bestCost) {
+                best = i;
+                bestCost = cost;
+            }
+        }
+        if (best == 0) {
+            return 0;
+        }
+
+        long discarded = 0;
+        for (int i = 0; i < best; i++) {
+            discarded += levels.get(i).statistics.getCount() * levels.get(i).cost;
+        }
+        Level old = levels.get(best);
+        Level base = new Level(model, old.index, maxLevel, true, root.split());
+        base.statistics = old.fine;
+        base.fine = old.fine;
+        base.nanos = old.nanos;
+        // Only the coarse observations of the old level are wasted
+        discarded += old.statistics.getCount() * (old.cost - base.cost);
+
+        levels.subList(0, best + 1).clear();
+        levels.add(0, base);
+        return discarded;
+    }
+
+    /**
+     * Samples still missing on every level of the estimator for the variance budget
+     */
+    private static long[] additionalSamples(List<Level> levels, Level[] all, double varianceBudget) {
+        int count = levels.size();
+        double[] variance = new double[count];
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) {
+            Level level = levels.get(i);
+            variance[i] = level.statistics.getCount() > 1 ? level.statistics.getVariance() : extrapolatedVariance(all, level.index);
+            sum += Math.sqrt(variance[i] * level.cost);
+        }
+        long[] extra = new long[count];
+        for (int i = 0; i < count; i++) {
+            Level level = levels.get(i);
+            long optimal = (long) Math.ceil(Math.sqrt(variance[i] / level.cost) * sum / varianceBudget);
+            extra[i] = Math.max(0, optimal - level.statistics.getCount());
+        }
+        return extra;
+    }
+
+    /**
+     * Variance of a correction without samples yet, from the one below and the decay rate beta
+     */
+    private static double extrapolatedVariance(Level[] all, int l) {
+        return all[l - 1].statistics.getVariance() / Math.pow(2, decayRate(all, l - 1, true));
+    }
+
+    /**
+     * Weak error left after level L, |E[P_L - P_(L-1)]| / (2^alpha - 1)
+     */
+    private static double remainingBias(Level[] all, int L) {
+        double alpha = decayRate(all, L, false);
+        double last = Math.abs(all[L].statistics.getMean());
+        if (L >= 2) {
+            // Giles' safeguard against a correction that is zero by chance
+            last = Math.max(last, 0.5 * Math.abs(all[L - 1].statistics.getMean()) / Math.pow(2, alpha));
+        }
+        return last / (Math.pow(2, alpha) - 1);
+    }
+
+    /**
+     * Least-squares slope of -log2 of the correction means (alpha) or variances (beta) over the levels 1..upTo,
+     * at least 0.5 as for the monitoring error of barriers and extremes
+     */
+    private static double decayRate(Level[] all, int upTo, boolean ofVariance) {
+        double sx = 0, sy = 0, sxx = 0, sxy = 0;
+        int n = 0;
+        for (int l = 1; l <= upTo; l++) {
+            RunningStatistics s = all[l].statistics;
+            double value = ofVariance ? s.getVariance() : Math.abs(s.getMean());
+            if (s.getCount() < 2 || !(value > 0)) {
+                continue;
+            }
+            double y = -Math.log(value) / Math.log(2);
+            sx += l;
+            sy += y;
+            sxx += (double) l * l;
+            sxy += l * y;
+            n++;
+        }
+        if (n < 2) {
+            return 0.5;
+        }
+        double slope = (n * sxy - sx * sy) / (n * sxx - sx * sx);
+        return Math.max(0.5, slope);
+    }
+
+    private static boolean anyPositive(long[] values) {
+        for (long v : values) {
+            if (v > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the extra samples of all levels on the engine's pool, in chunks of at most BLOCK_SIZE
+     * with one stream each, split from the level's root in chunk order
+     */
+    private static void simulate(GeometricBrownianMotion model, Supplier<? extends PathFunctional> functional,
+                                 List<Level> levels, long[] extra) {
+        List<Level> chunkLevel = new ArrayList<>();
+        List<Long> chunkSamples = new ArrayList<>();
+        List<SplittableRandom> chunkStream = new ArrayList<>();
+        for (int i = 0; i < extra.length; i++) {
+            for (long done = 0; done < extra[i]; done += MonteCarloEngine.BLOCK_SIZE) {
+                chunkLevel.add(levels.get(i));
+                chunkSamples.add(Math.min(MonteCarloEngine.BLOCK_SIZE, extra[i] - done));
+                chunkStream.add(levels.get(i).root.split());
+            }
+        }
+
+        int chunks = chunkLevel.size();
+        RunningStatistics[] statistics = new RunningStatistics[chunks];
+        RunningStatistics[] fine = new RunningStatistics[chunks];
+        long[] nanos = new long[chunks];
+        MonteCarloEngine.runBlocks(chunks, chunk -> {
+            long t0 = System.nanoTime();
+            statistics[chunk] = new RunningStatistics();
+            fine[chunk] = new RunningStatistics();
+            chunkLevel.get(chunk).sample(model, chunkStream.get(chunk), chunkSamples.get(chunk), functional,
+                    statistics[chunk], fine[chunk]);
+            nanos[chunk] = System.nanoTime() - t0;
+        });
+
+        // Merge in chunk order, the same on every machine
+        for (int c = 0; c < chunks; c++) {
+            Level level = chunkLevel.get(c);
+            level.statistics = RunningStatistics.combine(level.statistics, statistics[c]);
+            level.fine = level.base ? level.statistics : RunningStatistics.combine(level.fine, fine[c]);
+            level.nanos += nanos[c];
+        }
+    }
+
+    /**
+     * One level: its fine dates, which of them the coarse path sees, and its running statistics
+     */
+    private static final class Level {
+        final int index;
+        // Coarsest level of the estimator, samples P_l instead of P_l - P_(l-1)
+        final boolean base;
+        // Indices (1..steps) of the fine monitoring dates
+        final int[] dates;
+        // The fine date is also a coarse date
+        final boolean[] coarse;
+        final int cost;
+        final SplittableRandom root;
+        // Samples of the estimator and of the fine payoff alone
+        RunningStatistics statistics = new RunningStatistics();
+        RunningStatistics fine = new RunningStatistics();
+        long nanos;
+
+        Level(GeometricBrownianMotion model, int index, int maxLevel, boolean base, SplittableRandom root) {
+            this.index = index;
+            this.base = base;
+            this.root = root;
+            int steps = model.getSteps();
+            int stride = 1 << (maxLevel - index);
+
+            int count = steps / stride + (steps % stride != 0 ? 1 : 0);
+            dates = new int[count];
+            coarse = new boolean[count];
+            int coarseCount = 0;
+            for (int k = 0; k < count; k++) {
+                dates[k] = Math.min((k + 1) * stride, steps);
+                coarse[k] = !base && (dates[k] % (2 * stride) == 0 || dates[k] == steps);
+                coarseCount += coarse[k] ? 1 : 0;
+            }
+            cost = count + coarseCount + PATH_COST;
+        }
+
+        /**
+         * Adds P_l - P_(l-1) (P_l for the base level) and P_l of the given number of coupled paths
+         */
+        void sample(GeometricBrownianMotion model, SplittableRandom random, long samples,
+                    Supplier<? extends PathFunctional> functional, RunningStatistics statistics, RunningStatistics fineStatistics) {
+            final double S0 = model.getS0();
+            final double drift = model.drift();
+            final double vol = model.vol();
+            final int count = dates.length;
+
+            // Log increments between consecutive fine dates, in units of one step of the full schedule
+            double[] driftStep = new double[count];
+            double[] volStep = new double[count];
+            for (int k = 0; k < count; k++) {
+                int gap = dates[k] - (k == 0 ? 0 : dates[k - 1]);
+                driftStep[k] = drift * gap;
+                volStep[k] = vol * Math.sqrt(gap);
+            }
+
+            PathFunctional finePath = functional.get();
+            PathFunctional coarsePath = base ? null : functional.get();
+            for (long i = 0; i < samples; i++) {
+                double S = S0;
+                finePath.start(S0);
+                if (coarsePath != null) {
+                    coarsePath.start(S0);
+                }
+                for (int k = 0; k < count; k++) {
+                    S *= Math.exp(driftStep[k] + volStep[k] * random.nextGaussian());
+                    finePath.observe(dates[k], S);
+                    if (coarse[k]) {
+                        coarsePath.observe(dates[k], S);
+                    }
+                }
+                double payoff = finePath.payoff();
+                fineStatistics.add(payoff);
+                statistics.add(coarsePath != null ? payoff - coarsePath.payoff() : payoff);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.bsc.thesis.Options.montecarlo;
+
+/**
+ * Normal - Standard normal distribution helpers for the quasi-random samplers and closed forms
+ */
+public final class Normal {
+
+    private Normal() {
+    }
+
+    // Coefficients of Acklam's rational approximations
+    private static final double[] A = {
+            -3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+            1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00
+    };
+    private static final double[] B = {
+            -5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+            6.680131188771972e+01, -1.328068155288572e+01
+    };
+    private static final double[] C = {
+            -7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+            -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00
+    };
+    private static final double[] D = {
+            7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+            3.754408661907416e+00
+    };
+    private static final double P_LOW = 0.02425;
+    private static final double P_HIGH = 1 - P_LOW;
+
+    /**
+     * Standard normal CDF in double precision (Hart's rational approximation as given by West)
+     */
+    public static double cdf(double x) {
+        double xAbs = Math.abs(x);
+        double tail;
+        if (xAbs > 37) {
+            tail = 0.0;
+        } else {
+            double e = Math.exp(-0.5 * xAbs * xAbs);
+            if (xAbs < 7.07106781186547) {
+                double num = 3.52624965998911e-02 * xAbs + 0.700383064443688;
+                num = num * xAbs + 6.37396220353165;
+                num = num * xAbs + 33.912866078383;
+                num = num * xAbs + 112.079291497871;
+                num = num * xAbs + 221.213596169931;
+                num = num * xAbs + 220.206867912376;
+                double den = 8.83883476483184e-02 * xAbs + 1.75566716318264;
+                den = den * xAbs + 16.064177579207;
+                den = den * xAbs + 86.7807322029461;
+                den = den * xAbs + 296.564248779674;
+                den = den * xAbs + 637.333633378831;
+                den = den * xAbs + 793.826512519948;
+                den = den * xAbs + 440.413735824752;
+                tail = e * num / den;
+            } else {
+                double cf = xAbs + 0.65;
+                cf = xAbs + 4 / cf;
+                cf = xAbs + 3 / cf;
+                cf = xAbs + 2 / cf;
+                cf = xAbs + 1 / cf;
+                tail = e / cf / 2.506628274631;
+            }
+        }
+        return x > 0 ? 1 - tail : tail;
+    }
+
+    /**
+     * Inverse of the standard normal CDF (Acklam), relative error below 1.2e-9
+     * @param p probability in (0, 1)
+     * @return z with N(z) = p
+     */
+    public static double inverseCdf(double p) {
+        if (!(p > 0 && p < 1)) {
+            throw new IllegalArgumentException("Probability must be in (0, 1). Got: " + p);
+        }
+
+        if (p < P_LOW) {
+            // Lower tail
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5])
+                    / ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+        }
+        if (p > P_HIGH) {
+            // Upper tail
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5])
+                    / ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+        }
+
+        // Central region
+        double q = p - 0.5;
+        double t = q * q;
+        return (((((A[0] * t + A[1]) * t + A[2]) * t + A[3]) * t + A[4]) * t + A[5]) * q
+                / (((((B[0] * t + B[1]) * t + B[2]) * t + B[3]) * t + B[4]) * t + 1);
+    }
+}
@@ -0,0 +1,39 @@
+package com.bsc.thesis.Options.montecarlo;
+
+/**
+ * PathFunctional - Payoff that is accumulated while a path is generated
+ * The simulator calls start once per path, observe at every monitoring date and payoff
+ * at maturity, so only the running state of the payoff (sum, extreme, hit flag, ...) is kept
+ * and nothing is stored per path. One instance is reused for all paths of a block.
+ * MonteCarloEngine drives the dates through simulate, the other simulators call observe directly.
+ */
+public interface PathFunctional {
+
+    /**
+     * Resets the running state for a new path
+     * @param S0 initial stock price
+     */
+    void start(double S0);
+
+    /**
+     * Updates the running state with the stock price at a monitoring date
+     * @param step monitoring date 1..steps
+     * @param S stock price at the date
+     */
+    void observe(int step, double S);
+
+    /**
+     * Generates the dates of one sample and observes each one as it is generated: this functional and
+     * control on the path, twin and controlTwin on the antithetic path (each of the three may be null).
+     * Every payoff implements it with the same loop on purpose. The observe calls of the loop then only
+     * see the types that go with one payoff and are inlined, where one loop in the engine would call all
+     * payoffs through one megamorphic call site.
+     * @param path generator of the sample, started at S0
+     */
+    void simulate(PathGenerator path, PathFunctional twin, PathFunctional control, PathFunctional controlTwin);
+
+    /**
+     * Undiscounted payoff of the path
+     */
+    double payoff();
+}
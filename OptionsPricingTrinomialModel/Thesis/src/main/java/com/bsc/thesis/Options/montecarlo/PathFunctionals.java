@@ -0,0 +1,355 @@
+package com.bsc.thesis.Options.montecarlo;
+
+/**
+ * PathFunctionals - Streaming payoffs of the exotic options
+ * All averages and extremes run over the monitoring dates of the path; the lookback
+ * extremes also include S0, like a floating strike fixed at inception.
+ */
+public class PathFunctionals {
+
+    /**
+     * Vanilla payoff on the last monitored price
+     */
+    public static final class European implements PathFunctional {
+        private final boolean isCall;
+        private final double K;
+        private double last;
+
+        public European(boolean isCall, double K) {
+            this.isCall = isCall;
+            this.K = K;
+        }
+
+        @Override
+        public void start(double S0) {
+            last = S0;
+        }
+
+        @Override
+        public void observe(int step, double S) {
+            last = S;
+        }
+
+        @Override
+        public double payoff() {
+            return isCall ? Math.max(last - K, 0) : Math.max(K - last, 0);
+        }
+
+        @Override
+        public void simulate(PathGenerator path, PathFunctional twin, PathFunctional control, PathFunctional controlTwin) {
+            for (int step = 1, steps = path.getSteps(); step <= steps; step++) {
+                double S = path.next();
+                observe(step, S);
+                if (control != null) {
+                    control.observe(step, S);
+                }
+                if (twin != null) {
+                    double Sa = path.antithetic();
+                    twin.observe(step, Sa);
+                    if (controlTwin != null) {
+                        controlTwin.observe(step, Sa);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Arithmetic average price option, the average runs over the monitoring dates without S0
+     */
+    public static final class Asian implements PathFunctional {
+        private final boolean isCall;
+        private final double K;
+        private double sum;
+        private int count;
+
+        public Asian(boolean isCall, double K) {
+            this.isCall = isCall;
+            this.K = K;
+        }
+
+        @Override
+        public void start(double S0) {
+            sum = 0.0;
+            count = 0;
+        }
+
+        @Override
+        public void observe(int step, double S) {
+            sum += S;
+            count++;
+        }
+
+        @Override
+        public double payoff() {
+            double average = sum / count;
+            return isCall ? Math.max(average - K, 0) : Math.max(K - average, 0);
+        }
+
+        @Override
+        public void simulate(PathGenerator path, PathFunctional twin, PathFunctional control, PathFunctional controlTwin) {
+            for (int step = 1, steps = path.getSteps(); step <= steps; step++) {
+                double S = path.next();
+                observe(step, S);
+                if (control != null) {
+                    control.observe(step, S);
+                }
+                if (twin != null) {
+                    double Sa = path.antithetic();
+                    twin.observe(step, Sa);
+                    if (controlTwin != null) {
+                        controlTwin.observe(step, Sa);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Geometric average price option over the monitoring dates without S0, the classic
+     * control variate of the arithmetic Asian option
+     */
+    public static final class GeometricAsian implements PathFunctional {
+        private final boolean isCall;
+        private final double K;
+        private double logSum;
+        private int count;
+
+        public GeometricAsian(boolean isCall, double K) {
+            this.isCall = isCall;
+            this.K = K;
+        }
+
+        @Override
+        public void start(double S0) {
+            logSum = 0.0;
+            count = 0;
+        }
+
+        @Override
+        public void observe(int step, double S) {
+            logSum += Math.log(S);
+            count++;
+        }
+
+        @Override
+        public double payoff() {
+            double average = Math.exp(logSum / count);
+            return isCall ? Math.max(average - K, 0) : Math.max(K - average, 0);
+        }
+
+        @Override
+        public void simulate(PathGenerator path, PathFunctional twin, PathFunctional control, PathFunctional controlTwin) {
+            for (int step = 1, steps = path.getSteps(); step <= steps; step++) {
+                double S = path.next();
+                observe(step, S);
+                if (control != null) {
+                    control.observe(step, S);
+                }
+                if (twin != null) {
+                    double Sa = path.antithetic();
+                    twin.observe(step, Sa);
+                    if (controlTwin != null) {
+                        controlTwin.observe(step, Sa);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Floating strike lookback, S_T - min S for the call and max S - S_T for the put
+     */
+    public static final class Lookback implements PathFunctional {
+        private final boolean isCall;
+        private double min, max, last;
+
+        public Lookback(boolean isCall) {
+            this.isCall = isCall;
+        }
+
+        @Override
+        public void start(double S0) {
+            min = S0;
+            max = S0;
+            last = S0;
+        }
+
+        @Override
+        public void observe(int step, double S) {
+            min = Math.min(min, S);
+            max = Math.max(max, S);
+            last = S;
+        }
+
+        @Override
+        public double payoff() {
+            return isCall ? last - min : max - last;
+        }
+
+        @Override
+        public void simulate(PathGenerator path, PathFunctional twin, PathFunctional control, PathFunctional controlTwin) {
+            for (int step = 1, steps = path.getSteps(); step <= steps; step++) {
+                double S = path.next();
+                observe(step, S);
+                if (control != null) {
+                    control.observe(step, S);
+                }
+                if (twin != null) {
+                    double Sa = path.antithetic();
+                    twin.observe(step, Sa);
+                    if (controlTwin != null) {
+                        controlTwin.observe(step, Sa);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Knock-in or knock-out barrier option on a vanilla payoff, the barrier is monitored at the dates
+     */
+    public static final class Barrier implements PathFunctional {
+        private final boolean isCall;
+        private final double K;
+        private final double barrier;
+        private final boolean isDown;
+        private final boolean isOut;
+        private boolean hit;
+        private double last;
+
+        /**
+         * @param isCall true for a call, false for a put
+         * @param K strike price
+         * @param barrier barrier level
+         * @param isDown true if the barrier is hit at or below the level, false at or above
+         * @param isOut true for knock-out, false for knock-in
+         */
+        public Barrier(boolean isCall, double K, double barrier, boolean isDown, boolean isOut) {
+            this.isCall = isCall;
+            this.K = K;
+            this.barrier = barrier;
+            this.isDown = isDown;
+            this.isOut = isOut;
+        }
+
+        @Override
+        public void start(double S0) {
+            hit = false;
+            last = S0;
+        }
+
+        @Override
+        public void observe(int step, double S) {
+            hit |= isDown ? S <= barrier : S >= barrier;
+            last = S;
+        }
+
+        @Override
+        public double payoff() {
+            if (hit == isOut) {
+                return 0.0;
+            }
+            return isCall ? Math.max(last - K, 0) : Math.max(K - last, 0);
+        }
+
+        @Override
+        public void simulate(PathGenerator path, PathFunctional twin, PathFunctional control, PathFunctional controlTwin) {
+            for (int step = 1, steps = path.getSteps(); step <= steps; step++) {
+                double S = path.next();
+                observe(step, S);
+                if (control != null) {
+                    control.observe(step, S);
+                }
+                if (twin != null) {
+                    double Sa = path.antithetic();
+                    twin.observe(step, Sa);
+                    if (controlTwin != null) {
+                        controlTwin.observe(step, Sa);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Cliquet, S0 * max(Fglob, min(Cglob, sum of max(Floc, min(Cloc, local return)))),
+     * with exactly periods reset dates spread over the steps monitoring dates, the last one at maturity.
+     * A period closes at the first observed date on or after its reset date, so a simulator that observes
+     * a subset of the dates (a coarse level of MultilevelMonteCarlo) merges the periods it skips
+     */
+    public static final class Cliquet implements PathFunctional {
+        private final double localFloor, localCap, globalFloor, globalCap;
+        private final int steps, periods;
+        private double notional, reset, sum;
+        private int period, nextReset;
+
+        /**
+         * @param steps number of monitoring dates of the simulation
+         * @param periods number of periods, 1..steps
+         */
+        public Cliquet(double localFloor, double localCap, double globalFloor, double globalCap, int steps, int periods) {
+            if (periods < 1 || periods > steps) {
+                throw new IllegalArgumentException("Number of periods must be between 1 and the number of steps " + steps
+                        + ". Got: " + periods);
+            }
+            this.localFloor = localFloor;
+            this.localCap = localCap;
+            this.globalFloor = globalFloor;
+            this.globalCap = globalCap;
+            this.steps = steps;
+            this.periods = periods;
+        }
+
+        /**
+         * Monitoring date that ends period i (1..periods), floor(i * steps / periods)
+         */
+        public static int resetDate(int i, int steps, int periods) {
+            return (int) ((long) i * steps / periods);
+        }
+
+        @Override
+        public void start(double S0) {
+            notional = S0;
+            reset = S0;
+            sum = 0.0;
+            period = 1;
+            nextReset = resetDate(1, steps, periods);
+        }
+
+        @Override
+        public void observe(int step, double S) {
+            if (step >= nextReset) {
+                sum += Math.max(localFloor, Math.min(localCap, S / reset - 1));
+                reset = S;
+                while (period < periods && nextReset <= step) {
+                    period++;
+                    nextReset = resetDate(period, steps, periods);
+                }
+            }
+        }
+
+        @Override
+        public double payoff() {
+            return notional * Math.max(globalFloor, Math.min(globalCap, sum));
+        }
+
+        @Override
+        public void simulate(PathGenerator path, PathFunctional twin, PathFunctional control, PathFunctional controlTwin) {
+            for (int step = 1, steps = path.getSteps(); step <= steps; step++) {
+                double S = path.next();
+                observe(step, S);
+                if (control != null) {
+                    control.observe(step, S);
+                }
+                if (twin != null) {
+                    double Sa = path.antithetic();
+                    twin.observe(step, Sa);
+                    if (controlTwin != null) {
+                        controlTwin.observe(step, Sa);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import java.util.SplittableRandom;
+
+/**
+ * PathGenerator - Path of one sample, generated one monitoring date at a time
+ * next draws the normal of the next date and moves the path, antithetic moves the antithetic path
+ * with the same normal negated. Only the current prices are kept, nothing is stored per path.
+ */
+public final class PathGenerator {
+
+    private final SplittableRandom random;
+    private final double S0;
+    private final double drift;
+    private final double vol;
+    private final int steps;
+    private double S, Sa, z;
+
+    PathGenerator(GeometricBrownianMotion model, SplittableRandom random) {
+        this.random = random;
+        this.S0 = model.getS0();
+        this.drift = model.drift();
+        this.vol = model.vol();
+        this.steps = model.getSteps();
+    }
+
+    /**
+     * Number of monitoring dates of a path
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * Starts a new path (and antithetic path) at S0
+     */
+    void start() {
+        S = S0;
+        Sa = S0;
+    }
+
+    /**
+     * Stock price at the next monitoring date
+     */
+    public double next() {
+        z = random.nextGaussian();
+        S *= Math.exp(drift + vol * z);
+        return S;
+    }
+
+    /**
+     * Antithetic stock price at the date of the last call to next
+     */
+    public double antithetic() {
+        Sa *= Math.exp(drift - vol * z);
+        return Sa;
+    }
+}
@@ -0,0 +1,95 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * QuasiMonteCarloEngine - Randomized quasi-Monte Carlo with Sobol points and a Brownian bridge
+ * Every path consumes one point of a steps-dimensional Sobol sequence. The normals are fed to a
+ * Brownian bridge, so the well distributed leading coordinates decide the coarse shape of the path.
+ * The error is estimated from independent scramblings (replicas) of the sequence: the replica
+ * means are i.i.d. and unbiased, their spread gives the standard error. The points of a replica
+ * are cut into blocks like MonteCarloEngine, so the result does not depend on the number of cores.
+ */
+public class QuasiMonteCarloEngine {
+
+    /** Replicas used by the pricers that do not take a number */
+    public static final int DEFAULT_REPLICAS = 16;
+
+    /**
+     * Prices a path-dependent payoff by randomized quasi-Monte Carlo
+     * @param model dynamics and monitoring dates, one Sobol dimension per date
+     * @param points Sobol points per replica
+     * @param replicas independent scramblings, at least 2 unless the sequence is not scrambled
+     * @param seed seed of the scrambling
+     * @param scrambling randomization of the sequence, NONE gives a single replica without error estimate
+     * @param functional creates the payoff accumulator of a block
+     * @return discounted price, standard error over the replicas (NaN for one replica), points * replicas paths
+     */
+    public static MonteCarloResult price(GeometricBrownianMotion model, long points, int replicas, long seed,
+                                         SobolSequence.Scrambling scrambling,
+                                         Supplier<? extends PathFunctional> functional) {
+        if (points < 1 || points > SobolSequence.MAX_INDEX) {
+            throw new IllegalArgumentException("Number of points must be between 1 and " + SobolSequence.MAX_INDEX + ". Got: " + points);
+        }
+        if (replicas < 1) {
+            throw new IllegalArgumentException("Number of replicas must be positive. Got: " + replicas);
+        }
+        if (scrambling == SobolSequence.Scrambling.NONE && replicas > 1) {
+            throw new IllegalArgumentException("Replicas of an unscrambled sequence are identical. Got: " + replicas);
+        }
+
+        final double S0 = model.getS0();
+        final int steps = model.getSteps();
+        final double drift = model.drift();
+        final double vol = model.vol();
+        final BrownianBridge bridge = new BrownianBridge(steps);
+
+        SplittableRandom[] streams = MonteCarloEngine.splitStreams(new SplittableRandom(seed), replicas);
+        SobolSequence[] sequences = new SobolSequence[replicas];
+        for (int r = 0; r < replicas; r++) {
+            sequences[r] = new SobolSequence(steps, scrambling, streams[r]);
+        }
+
+        // Blocks of all replicas run together, replica-major
+        int blocksPerReplica = MonteCarloEngine.blockCount(points);
+        RunningStatistics[] statistics = new RunningStatistics[replicas * blocksPerReplica];
+
+        MonteCarloEngine.runBlocks(statistics.length, task -> {
+            int replica = task / blocksPerReplica;
+            int block = task % blocksPerReplica;
+            // The origin of the plain sequence maps to -infinity, so the points start at index 1
+            SobolSequence.Cursor cursor = sequences[replica].cursor(1 + (long) block * MonteCarloEngine.BLOCK_SIZE);
+            PathFunctional f = functional.get();
+            RunningStatistics s = new RunningStatistics();
+            double[] u = new double[steps];
+            double[] z = new double[steps];
+            double[] w = new double[steps];
+
+            for (long i = 0, n = MonteCarloEngine.blockPaths(points, block); i < n; i++) {
+                cursor.next(u);
+                for (int d = 0; d < steps; d++) {
+                    z[d] = Normal.inverseCdf(u[d]);
+                }
+                bridge.buildPath(z, w);
+
+                f.start(S0);
+                for (int step = 1; step <= steps; step++) {
+                    f.observe(step, S0 * Math.exp(drift * step + vol * w[step - 1]));
+                }
+                s.add(f.payoff());
+            }
+            statistics[task] = s;
+        });
+
+        // Replica means are the i.i.d. samples of the estimator
+        RunningStatistics estimates = new RunningStatistics();
+        for (int r = 0; r < replicas; r++) {
+            estimates.add(RunningStatistics.reduce(statistics, r * blocksPerReplica, (r + 1) * blocksPerReplica).getMean());
+        }
+
+        double discount = model.discount();
+        double standardError = replicas > 1 ? discount * estimates.getStandardError() : Double.NaN;
+        return new MonteCarloResult(discount * estimates.getMean(), standardError, points * replicas);
+    }
+}
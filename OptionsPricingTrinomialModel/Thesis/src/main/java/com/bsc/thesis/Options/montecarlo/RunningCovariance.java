@@ -0,0 +1,123 @@
+package com.bsc.thesis.Options.montecarlo;
+
+/**
+ * RunningCovariance - Means and co-moments of a stream of sample pairs (y, x)
+ * The bivariate version of RunningStatistics: pairs are added with Welford's update and blocks
+ * are combined with Chan's formula, so the optimal control variate coefficient
+ * beta = Cov(y, x) / Var(x) is estimated in one pass without keeping the samples.
+ */
+public class RunningCovariance {
+
+    private long count;
+    private double meanY, meanX;
+    private double cyy, cxx, cxy;
+
+    public RunningCovariance() {
+    }
+
+    private RunningCovariance(long count, double meanY, double meanX, double cyy, double cxx, double cxy) {
+        this.count = count;
+        this.meanY = meanY;
+        this.meanX = meanX;
+        this.cyy = cyy;
+        this.cxx = cxx;
+        this.cxy = cxy;
+    }
+
+    /**
+     * Adds one pair (Welford)
+     */
+    public void add(double y, double x) {
+        count++;
+        double dy = y - meanY;
+        double dx = x - meanX;
+        meanY += dy / count;
+        meanX += dx / count;
+        cyy += dy * (y - meanY);
+        cxx += dx * (x - meanX);
+        cxy += dy * (x - meanX);
+    }
+
+    /**
+     * Co-moments of the union of two disjoint sets of pairs (Chan et al.)
+     */
+    public static RunningCovariance combine(RunningCovariance a, RunningCovariance b) {
+        if (a.count == 0) {
+            return new RunningCovariance(b.count, b.meanY, b.meanX, b.cyy, b.cxx, b.cxy);
+        }
+        if (b.count == 0) {
+            return new RunningCovariance(a.count, a.meanY, a.meanX, a.cyy, a.cxx, a.cxy);
+        }
+        long count = a.count + b.count;
+        double dy = b.meanY - a.meanY;
+        double dx = b.meanX - a.meanX;
+        double weight = (double) a.count * b.count / count;
+        return new RunningCovariance(count,
+                a.meanY + dy * b.count / count,
+                a.meanX + dx * b.count / count,
+                a.cyy + b.cyy + dy * dy * weight,
+                a.cxx + b.cxx + dx * dx * weight,
+                a.cxy + b.cxy + dy * dx * weight);
+    }
+
+    /**
+     * Combines blocks[from..to) with a balanced binary tree, like RunningStatistics.reduce
+     */
+    public static RunningCovariance reduce(RunningCovariance[] blocks, int from, int to) {
+        if (to - from == 1) {
+            return blocks[from];
+        }
+        int mid = (from + to) >>> 1;
+        return combine(reduce(blocks, from, mid), reduce(blocks, mid, to));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanY() {
+        return meanY;
+    }
+
+    public double getMeanX() {
+        return meanX;
+    }
+
+    /**
+     * Sample variance of y, 0 for less than two pairs
+     */
+    public double getVarianceY() {
+        return count > 1 ? cyy / (count - 1) : 0.0;
+    }
+
+    /**
+     * Sample variance of x, 0 for less than two pairs
+     */
+    public double getVarianceX() {
+        return count > 1 ? cxx / (count - 1) : 0.0;
+    }
+
+    /**
+     * Sample covariance of y and x, 0 for less than two pairs
+     */
+    public double getCovariance() {
+        return count > 1 ? cxy / (count - 1) : 0.0;
+    }
+
+    /**
+     * Least-squares coefficient of y on x, 0 if x is constant
+     */
+    public double getBeta() {
+        return cxx > 0 ? cxy / cxx : 0.0;
+    }
+
+    /**
+     * Sample variance of the residual y - beta x
+     */
+    public double getResidualVariance() {
+        if (count < 2) {
+            return 0.0;
+        }
+        return Math.max(0.0, cyy - getBeta() * cxy) / (count - 1);
+    }
+}
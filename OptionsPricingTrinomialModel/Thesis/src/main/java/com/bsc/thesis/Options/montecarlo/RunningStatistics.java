@@ -0,0 +1,84 @@
+package com.bsc.thesis.Options.montecarlo;
+
+/**
+ * RunningStatistics - Count, mean and sum of squared deviations of a stream of samples
+ * Samples are added with Welford's update, and the statistics of two disjoint sets of
+ * samples are combined with Chan's formula, so blocks of paths can be reduced in any
+ * fixed tree without keeping the samples.
+ */
+public class RunningStatistics {
+
+    private long count;
+    private double mean;
+    private double m2;
+
+    public RunningStatistics() {
+    }
+
+    private RunningStatistics(long count, double mean, double m2) {
+        this.count = count;
+        this.mean = mean;
+        this.m2 = m2;
+    }
+
+    /**
+     * Adds one sample (Welford)
+     */
+    public void add(double x) {
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+    }
+
+    /**
+     * Statistics of the union of two disjoint sets of samples (Chan et al.)
+     */
+    public static RunningStatistics combine(RunningStatistics a, RunningStatistics b) {
+        if (a.count == 0) {
+            return new RunningStatistics(b.count, b.mean, b.m2);
+        }
+        if (b.count == 0) {
+            return new RunningStatistics(a.count, a.mean, a.m2);
+        }
+        long count = a.count + b.count;
+        double delta = b.mean - a.mean;
+        double mean = a.mean + delta * b.count / count;
+        double m2 = a.m2 + b.m2 + delta * delta * ((double) a.count * b.count / count);
+        return new RunningStatistics(count, mean, m2);
+    }
+
+    /**
+     * Combines the statistics of blocks[from..to) with a balanced binary tree,
+     * the result only depends on the blocks, not on the order in which they were computed
+     */
+    public static RunningStatistics reduce(RunningStatistics[] blocks, int from, int to) {
+        if (to - from == 1) {
+            return blocks[from];
+        }
+        int mid = (from + to) >>> 1;
+        return combine(reduce(blocks, from, mid), reduce(blocks, mid, to));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Sample variance, 0 for less than two samples
+     */
+    public double getVariance() {
+        return count > 1 ? m2 / (count - 1) : 0.0;
+    }
+
+    /**
+     * Standard error of the mean
+     */
+    public double getStandardError() {
+        return count > 1 ? Math.sqrt(getVariance() / count) : 0.0;
+    }
+}
@@ -0,0 +1,305 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * SobolSequence - Self-contained Sobol low-discrepancy sequence with 32-bit resolution
+ * The primitive polynomials are enumerated by degree and then by coefficients, the same order
+ * as the Joe-Kuo tables, so no data file is needed. The initial direction numbers of the first
+ * dimensions are the Joe-Kuo values; the later dimensions, which a Brownian bridge leaves with
+ * little variance, use fixed pseudo-random odd values. Points are produced in Gray-code order
+ * and any index can be reached directly, so blocks of points can be generated in parallel.
+ */
+public class SobolSequence {
+
+    /** Bits of every coordinate */
+    public static final int BITS = 32;
+
+    /** Largest supported dimension, all primitive polynomials up to degree 18 */
+    public static final int MAX_DIMENSION = 21201;
+
+    /** Largest point index */
+    public static final long MAX_INDEX = (1L << BITS) - 1;
+
+    private static final double SCALE = 1.0 / (1L << BITS);
+
+    /** Seed of the initial direction numbers beyond the embedded table */
+    private static final long DIRECTION_SEED = 0x50B0_1L;
+
+    /**
+     * Randomization of the sequence
+     * NONE: the plain sequence
+     * DIGITAL_SHIFT: every coordinate is XOR-ed with a random 32-bit word
+     * LINEAR_SHIFT: random lower triangular matrix scrambling (Matousek) followed by a digital shift
+     */
+    public enum Scrambling {
+        NONE, DIGITAL_SHIFT, LINEAR_SHIFT
+    }
+
+    // Joe-Kuo initial direction numbers m_1..m_s of dimensions 2..21
+    private static final int[][] JOE_KUO = {
+            {1},
+            {1, 3},
+            {1, 3, 1},
+            {1, 1, 1},
+            {1, 1, 3, 3},
+            {1, 3, 5, 13},
+            {1, 1, 5, 5, 17},
+            {1, 1, 5, 5, 5},
+            {1, 1, 7, 11, 19},
+            {1, 1, 5, 1, 1},
+            {1, 1, 1, 3, 11},
+            {1, 3, 5, 5, 31},
+            {1, 3, 3, 9, 7, 49},
+            {1, 1, 1, 15, 21, 21},
+            {1, 3, 1, 13, 27, 49},
+            {1, 1, 1, 15, 7, 5},
+            {1, 3, 1, 15, 13, 25},
+            {1, 1, 5, 5, 19, 61},
+            {1, 3, 7, 11, 23, 15, 103},
+            {1, 3, 7, 13, 13, 15, 69}
+    };
+
+    // Primitive polynomials found so far, full bit pattern including x^s and 1
+    private static final List<Integer> polynomials = new ArrayList<>();
+    private static int searchDegree = 1;
+    private static int searchCoefficients = 0;
+
+    private final int dimension;
+    private final int[][] directions;
+    private final int[] shift;
+
+    /**
+     * Plain Sobol sequence
+     * @param dimension number of coordinates, 1..MAX_DIMENSION
+     */
+    public SobolSequence(int dimension) {
+        this(dimension, Scrambling.NONE, null);
+    }
+
+    /**
+     * @param dimension number of coordinates, 1..MAX_DIMENSION
+     * @param scrambling randomization of the sequence
+     * @param random source of the scrambling, unused for NONE
+     */
+    public SobolSequence(int dimension, Scrambling scrambling, SplittableRandom random) {
+        if (dimension < 1 || dimension > MAX_DIMENSION) {
+            throw new IllegalArgumentException("Dimension must be between 1 and " + MAX_DIMENSION + ". Got: " + dimension);
+        }
+        if (scrambling != Scrambling.NONE && random == null) {
+            throw new IllegalArgumentException("Scrambling " + scrambling + " needs a random generator");
+        }
+
+        this.dimension = dimension;
+        this.directions = new int[dimension][];
+        this.shift = new int[dimension];
+
+        for (int d = 0; d < dimension; d++) {
+            int[] v = directionNumbers(d);
+            if (scrambling == Scrambling.LINEAR_SHIFT) {
+                scrambleLinear(v, random);
+            }
+            if (scrambling != Scrambling.NONE) {
+                shift[d] = random.nextInt();
+            }
+            directions[d] = v;
+        }
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Generator of consecutive points
+     * @param index index of the first point, 0..MAX_INDEX (point 0 of the plain sequence is the origin)
+     */
+    public Cursor cursor(long index) {
+        if (index < 0 || index > MAX_INDEX) {
+            throw new IllegalArgumentException("Index must be between 0 and " + MAX_INDEX + ". Got: " + index);
+        }
+        return new Cursor(index);
+    }
+
+    /**
+     * Walks the sequence in Gray-code order, one XOR per coordinate and point
+     */
+    public final class Cursor {
+        private final int[] x = new int[dimension];
+        private long index;
+
+        private Cursor(long index) {
+            this.index = index;
+            long gray = index ^ (index >>> 1);
+            for (int d = 0; d < dimension; d++) {
+                int value = shift[d];
+                for (int k = 0; gray >>> k != 0; k++) {
+                    if ((gray >>> k & 1) != 0) {
+                        value ^= directions[d][k];
+                    }
+                }
+                x[d] = value;
+            }
+        }
+
+        /**
+         * Writes the current point into u and moves to the next one. The coordinates are
+         * centred in their 2^-32 cell, so they are never exactly 0 or 1.
+         * @param u array of at least dimension entries
+         */
+        public void next(double[] u) {
+            if (index > MAX_INDEX) {
+                throw new IllegalStateException("Sobol sequence exhausted after " + MAX_INDEX + " points");
+            }
+            for (int d = 0; d < dimension; d++) {
+                u[d] = ((x[d] & 0xFFFFFFFFL) + 0.5) * SCALE;
+            }
+            // Gray code of index+1 differs in the lowest zero bit of index
+            int c = Long.numberOfTrailingZeros(~index);
+            if (c < BITS) {
+                for (int d = 0; d < dimension; d++) {
+                    x[d] ^= directions[d][c];
+                }
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Direction numbers v_1..v_32 of a dimension, v_k = m_k 2^(32-k)
+     */
+    private static int[] directionNumbers(int d) {
+        int[] v = new int[BITS];
+        if (d == 0) {
+            // van der Corput sequence, all m_k = 1
+            for (int k = 0; k < BITS; k++) {
+                v[k] = 1 << (BITS - 1 - k);
+            }
+            return v;
+        }
+
+        int polynomial = primitivePolynomial(d - 1);
+        int s = 31 - Integer.numberOfLeadingZeros(polynomial);
+
+        int[] m;
+        if (d <= JOE_KUO.length) {
+            m = JOE_KUO[d - 1];
+        } else {
+            SplittableRandom random = new SplittableRandom(DIRECTION_SEED + d);
+            m = new int[s];
+            for (int k = 1; k <= s; k++) {
+                m[k - 1] = (random.nextInt(1 << (k - 1)) << 1) | 1;
+            }
+        }
+
+        for (int k = 0; k < Math.min(s, BITS); k++) {
+            v[k] = m[k] << (BITS - 1 - k);
+        }
+        // v_k = v_{k-s} ^ (v_{k-s} >> s) ^ sum of a_j v_{k-j}
+        for (int k = s; k < BITS; k++) {
+            int value = v[k - s] ^ (v[k - s] >>> s);
+            for (int j = 1; j < s; j++) {
+                if ((polynomial >>> (s - j) & 1) != 0) {
+                    value ^= v[k - j];
+                }
+            }
+            v[k] = value;
+        }
+        return v;
+    }
+
+    /**
+     * Multiplies the direction numbers by a random lower triangular matrix with unit diagonal,
+     * acting on the binary digits from the most significant one down
+     */
+    private static void scrambleLinear(int[] v, SplittableRandom random) {
+        int[] rows = new int[BITS];
+        for (int i = 0; i < BITS; i++) {
+            int above = i == 0 ? 0 : -1 << (BITS - i);
+            rows[i] = (1 << (BITS - 1 - i)) | (random.nextInt() & above);
+        }
+        for (int k = 0; k < BITS; k++) {
+            int scrambled = 0;
+            for (int i = 0; i < BITS; i++) {
+                scrambled |= (Integer.bitCount(rows[i] & v[k]) & 1) << (BITS - 1 - i);
+            }
+            v[k] = scrambled;
+        }
+    }
+
+    /**
+     * The n-th primitive polynomial over GF(2), ordered by degree and then by the inner coefficients
+     */
+    static synchronized int primitivePolynomial(int n) {
+        while (polynomials.size() <= n) {
+            if (searchCoefficients >= 1 << (searchDegree - 1)) {
+                searchDegree++;
+                searchCoefficients = 0;
+            }
+            int polynomial = (1 << searchDegree) | (searchCoefficients << 1) | 1;
+            searchCoefficients++;
+            if (isPrimitive(polynomial, searchDegree)) {
+                polynomials.add(polynomial);
+            }
+        }
+        return polynomials.get(n);
+    }
+
+    /**
+     * x generates the multiplicative group of GF(2)[x]/P, i.e. its order is exactly 2^s - 1
+     */
+    private static boolean isPrimitive(int polynomial, int s) {
+        long order = (1L << s) - 1;
+        if (powerOfX(order, polynomial, s) != 1) {
+            return false;
+        }
+        long rest = order;
+        for (long q = 2; q * q <= rest; q++) {
+            if (rest % q == 0) {
+                if (powerOfX(order / q, polynomial, s) == 1) {
+                    return false;
+                }
+                while (rest % q == 0) {
+                    rest /= q;
+                }
+            }
+        }
+        return rest == 1 || powerOfX(order / rest, polynomial, s) != 1;
+    }
+
+    /**
+     * x^e modulo P
+     */
+    private static long powerOfX(long e, int polynomial, int s) {
+        long result = 1;
+        long base = s == 1 ? 1 : 2; // x mod (x + 1) = 1
+        while (e > 0) {
+            if ((e & 1) != 0) {
+                result = multiplyMod(result, base, polynomial, s);
+            }
+            base = multiplyMod(base, base, polynomial, s);
+            e >>>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Carry-less product of two residues modulo P of degree s
+     */
+    private static long multiplyMod(long a, long b, int polynomial, int s) {
+        long result = 0;
+        while (b != 0) {
+            if ((b & 1) != 0) {
+                result ^= a;
+            }
+            b >>>= 1;
+            a <<= 1;
+            if ((a >>> s & 1) != 0) {
+                a ^= polynomial;
+            }
+        }
+        return result;
+    }
+}
@@ -1,9 +1,14 @@
 package com.bsc.thesis.Options.vanilla;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Phaser;
+import java.util.concurrent.Future;
 
-import static com.bsc.thesis.Options.vanilla.utils.StockPricesTree.generateStockPrices;
+import static com.bsc.thesis.Options.vanilla.utils.StockPricesTree.generateStockLattice;
 import static com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing.americanPut;
 
 public class American {
@@ -25,36 +30,69 @@ public class American {
         American.K = K;
     }
 
+    /**
+     * Computes the price of an American put option with maturity maxT on a single lattice
+     * @param S0 initial stock price
+     * @param maxT maturity, one step per unit of time (h = 1)
+     * @param r risk-free interest rate
+     * @param p probability parameter
+     * @param sigma volatility
+     * @return american put price for maturity maxT
+     */
     public static double calculateAmericanOptions(double S0, int maxT, double r, double p, double sigma) throws InterruptedException {
-            double[] A = new double[maxT + 1];
-            Phaser phaser = new Phaser(1); // Synchronization barrier
-
-            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
-                for (int t = 1; t <= maxT; t++) {
-                    int currentT = t;
-                    phaser.register();
-
-                    executor.submit(() -> {
-                        try {
-                            double h = 1.0; // since T and N the same so when h = T/N, it always gives 1.0
-                            double u = sigma * Math.sqrt(h / 2 / p);
-
-                            double[][] S = generateStockPrices(S0, currentT, u);
-                            double[][] AA = americanPut(S, K, r, currentT, p, h, u);
-
-                            A[currentT] = AA[currentT][0];
-                            //System.out.printf("T=%d: American Put Price = %.6f%n", currentT, A[currentT]);
-                        } finally {
-                            phaser.arriveAndDeregister();
-                        }
-                    });
-                }
+        if (maxT < 1) {
+            throw new IllegalArgumentException("Maturity maxT must be at least 1. Got: " + maxT);
+        }
+        return priceMaturity(S0, maxT, r, p, sigma);
+    }
 
-                // Wait for all tasks to complete
-                phaser.arriveAndAwaitAdvance();
+    /**
+     * Computes the American put term structure, one price for every maturity T = 1..maxT.
+     * The maturities run on a fixed pool of one thread per CPU. The largest lattices are
+     * submitted first so the small ones fill the gaps at the end instead of the other way round.
+     * Every task only keeps the rolling columns of its own lattice.
+     * @param S0 initial stock price
+     * @param maxT largest maturity, one step per unit of time (h = 1)
+     * @param r risk-free interest rate
+     * @param p probability parameter
+     * @param sigma volatility
+     * @return array A with A[T] the american put price for maturity T (A[0] is unused)
+     */
+    public static double[] calculateAmericanTermStructure(double S0, int maxT, double r, double p, double sigma) throws InterruptedException {
+        if (maxT < 1) {
+            throw new IllegalArgumentException("Maturity maxT must be at least 1. Got: " + maxT);
+        }
+
+        double[] A = new double[maxT + 1];
+        List<Callable<Void>> tasks = new ArrayList<>(maxT);
+        for (int t = maxT; t >= 1; t--) {
+            final int currentT = t;
+            tasks.add(() -> {
+                A[currentT] = priceMaturity(S0, currentT, r, p, sigma);
+                return null;
+            });
+        }
+
+        int threads = Math.min(maxT, Runtime.getRuntime().availableProcessors());
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException cause) {
+                        throw cause;
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
             }
+        }
+
+        return A;
+    }
 
-            // return option price
-            return A[maxT];
+    private static double priceMaturity(double S0, int T, double r, double p, double sigma) {
+        double h = 1.0; // since T and N the same so when h = T/N, it always gives 1.0
+        double u = sigma * Math.sqrt(h / 2 / p);
+        return americanPut(generateStockLattice(S0, T, u), K, r, p, h);
     }
-}
\ No newline at end of file
+}
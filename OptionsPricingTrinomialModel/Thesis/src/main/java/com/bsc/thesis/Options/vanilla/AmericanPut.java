@@ -1,6 +1,7 @@
 package com.bsc.thesis.Options.vanilla;
 
-import java.util.Arrays;
+import com.bsc.thesis.Options.vanilla.utils.StockLattice;
+import com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing;
 
 public class AmericanPut {
 
@@ -33,6 +34,12 @@ public class AmericanPut {
         return A;
     }
 
+    // Same induction on a closed-form lattice, returns only the root price
+    public static double americanPut(StockLattice S, double K, double r,
+                                     double p, double h) {
+        return TrinomialOptionPricing.americanPut(S, K, r, p, h);
+    }
+
     // Helper method to create stock price tree (similar to StockPricesnew)
     public static double[][] createStockTree(double S0, int N, double u) {
         double[][] S = new double[2 * N + 1][N + 1];
@@ -1,7 +1,5 @@
 package com.bsc.thesis.Options.vanilla;
 
-import com.bsc.thesis.Options.vanilla.utils.StockPricesTree;
-
 import java.util.function.DoubleUnaryOperator;
 
 import static com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing.*;
@@ -32,9 +30,7 @@ public class European {
 
         if (isCall) {
             try {
-                double[][] stockTree = StockPricesTree.generateStockPrices(S0, N, u);
-
-                callPrice = priceOption(stockTree, CALL_PAYOFF, r, p, h, u);
+                callPrice = priceOptionRolling(S0, N, CALL_PAYOFF, r, p, h, u);
                 System.out.printf("Call option price: %.4f%n", callPrice);
                 //return callPrice;
             } catch (Exception e) {
@@ -43,9 +39,7 @@ public class European {
             }
         } else {
             try {
-                double[][] stockTree = StockPricesTree.generateStockPrices(S0, N, u);
-
-                putPrice = priceOption(stockTree, PUT_PAYOFF, r, p, h, u);
+                putPrice = priceOptionRolling(S0, N, PUT_PAYOFF, r, p, h, u);
                 System.out.printf("Put option price: %.4f%n", putPrice);
                 //putPrice;
             } catch (Exception e) {
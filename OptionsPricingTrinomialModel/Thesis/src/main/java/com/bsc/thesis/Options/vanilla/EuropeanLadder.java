@@ -0,0 +1,104 @@
+package com.bsc.thesis.Options.vanilla;
+
+import com.bsc.thesis.Options.vanilla.utils.StockLattice;
+
+import static com.bsc.thesis.Options.vanilla.utils.StockPricesTree.generateStockLattice;
+import static com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing.riskNeutralProbabilities;
+
+/**
+ * EuropeanLadder - Prices a whole strike ladder of European calls and puts on one trinomial lattice
+ * A backward induction per strike repeats the same qu/q0/qd stencil over the same lattice
+ * for every strike. Since a European value is linear in its terminal payoff, the lattice is
+ * walked only once to get the discounted state prices of the terminal nodes (Arrow-Debreu
+ * prices), and every strike is then a single O(N) sum over the 2N+1 terminal nodes.
+ */
+public class EuropeanLadder {
+
+    /**
+     * Prices a ladder of European options with a single pass over the lattice
+     * @param S0 initial stock price
+     * @param strikes strike prices
+     * @param isCall true for a call, false for a put, one entry per strike
+     * @param N number of steps
+     * @param u price change when stock price goes up
+     * @param r risk-free interest rate
+     * @param p probability parameter
+     * @param h length of each time step
+     * @return option prices in the order of the strikes
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public static double[] calculateEuropeanOptions(double S0, double[] strikes, boolean[] isCall,
+                                                    int N, double u, double r, double p, double h) {
+        if (strikes == null || isCall == null || strikes.length != isCall.length) {
+            throw new IllegalArgumentException("Strikes and option types must be non-null and of the same length");
+        }
+        for (double K : strikes) {
+            if (K < 0) {
+                throw new IllegalArgumentException("Strike price must be non-negative. Got: " + K);
+            }
+        }
+
+        StockLattice S = generateStockLattice(S0, N, u);
+        double[] statePrices = terminalStatePrices(N, r, p, h, u);
+
+        double[] prices = new double[strikes.length];
+        for (int k = 0; k < strikes.length; k++) {
+            final double K = strikes[k];
+            double price = 0.0;
+            if (isCall[k]) {
+                for (int i = 0; i <= 2 * N; i++) {
+                    price += statePrices[i] * Math.max(S.rowPrice(i) - K, 0);
+                }
+            } else {
+                for (int i = 0; i <= 2 * N; i++) {
+                    price += statePrices[i] * Math.max(K - S.rowPrice(i), 0);
+                }
+            }
+            prices[k] = price;
+        }
+        return prices;
+    }
+
+    /**
+     * Discounted state prices of the terminal nodes, i.e. the value today of a claim
+     * paying 1 at row i at maturity. Propagated forward from the root with the same
+     * stencil the backward induction uses: an up move goes from row i to row i-1.
+     * @param N number of steps
+     * @param r risk-free interest rate
+     * @param p probability parameter
+     * @param h length of each time step
+     * @param u price change when stock price goes up
+     * @return state prices of rows 0..2N at step N
+     */
+    public static double[] terminalStatePrices(int N, double r, double p, double h, double u) {
+        if (N < 0) {
+            throw new IllegalArgumentException("Number of steps N must be non-negative. Got: " + N);
+        }
+
+        double[] Q = riskNeutralProbabilities(r, p, h, u);
+        double discount = Math.exp(-r * h);
+        final double dqu = discount * Q[0];
+        final double dq0 = discount * Q[1];
+        final double dqd = discount * Q[2];
+
+        double[] current = new double[2 * N + 1];
+        double[] next = new double[2 * N + 1];
+        current[N] = 1.0;
+
+        for (int j = 0; j < N; j++) {
+            // rows N-j-1..N+j+1 are reachable after the step
+            for (int i = N - j - 1; i <= N + j + 1; i++) {
+                double fromBelow = i + 1 <= N + j ? current[i + 1] : 0.0;
+                double fromSame = i >= N - j && i <= N + j ? current[i] : 0.0;
+                double fromAbove = i - 1 >= N - j ? current[i - 1] : 0.0;
+                next[i] = dqu * fromBelow + dq0 * fromSame + dqd * fromAbove;
+            }
+
+            double[] temp = current;
+            current = next;
+            next = temp;
+        }
+
+        return current;
+    }
+}
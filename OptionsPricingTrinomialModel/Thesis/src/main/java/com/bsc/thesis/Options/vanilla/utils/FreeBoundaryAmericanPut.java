@@ -0,0 +1,109 @@
+package com.bsc.thesis.Options.vanilla.utils;
+
+/**
+ * FreeBoundaryAmericanPut - American put on the trinomial lattice with early-exercise boundary tracking
+ * For a put (r >= 0, no dividends) the exercise region of every time slice is the
+ * contiguous range of rows below a critical price, and the critical price can only
+ * fall when going backward in time. So at step j:
+ * - rows above the boundary of step j+1 are in the holding region and only need the stencil,
+ * - from there the rows are scanned downward until exercise beats continuation,
+ * - every row below that boundary is filled with K - S directly, without the stencil.
+ * The boundary of every step is returned as a by-product, e.g. for hedging or plotting
+ * the curve like the Simulation/American scripts.
+ */
+public class FreeBoundaryAmericanPut {
+
+    public static class Result {
+        /** American put price at the root */
+        public final double price;
+        /** First exercise row of every step 0..N, N+j+1 if there is no exercise at step j */
+        public final int[] boundaryRows;
+        /** Critical stock price of every step 0..N, NaN if there is no exercise at step j */
+        public final double[] criticalPrices;
+
+        public Result(double price, int[] boundaryRows, double[] criticalPrices) {
+            this.price = price;
+            this.boundaryRows = boundaryRows;
+            this.criticalPrices = criticalPrices;
+        }
+    }
+
+    /**
+     * Computes the price and the early-exercise boundary of an American put option
+     * @param S stock price lattice, also gives the price change u when the stock price goes up
+     * @param K strike price
+     * @param r risk-free interest rate
+     * @param p probability parameter
+     * @param h length of each time step
+     * @return price at the root together with the boundary curve
+     */
+    public static Result americanPut(StockLattice S, double K, double r, double p, double h) {
+        final int N = S.getSteps();
+        final double[] Q = TrinomialOptionPricing.riskNeutralProbabilities(r, p, h, S.getU());
+        final double discountFactor = Math.exp(-r * h);
+        final double dqu = discountFactor * Q[0];
+        final double dq0 = discountFactor * Q[1];
+        final double dqd = discountFactor * Q[2];
+
+        double[] next = new double[2 * N + 1];
+        double[] current = new double[2 * N + 1];
+        double[] exercise = new double[2 * N + 1];
+        int[] boundaryRows = new int[N + 1];
+        double[] criticalPrices = new double[N + 1];
+
+        // Exercise value of every row, also the final column (expiration)
+        for (int i = 0; i < 2 * N + 1; i++) {
+            exercise[i] = Math.max(K - S.rowPrice(i), 0);
+            next[i] = exercise[i];
+        }
+
+        // At maturity the put is exercised wherever it is in the money
+        int boundary = 2 * N + 1;
+        for (int i = 0; i < 2 * N + 1; i++) {
+            if (exercise[i] > 0) {
+                boundary = i;
+                break;
+            }
+        }
+        boundaryRows[N] = boundary;
+
+        // Backward induction
+        for (int j = N - 1; j >= 0; j--) {
+            final int minRow = N - j;
+            final int maxRow = N + j;
+
+            // Holding region of step j+1 is still holding at step j
+            final int holdEnd = Math.min(Math.max(boundary, minRow), maxRow + 1);
+            if (holdEnd > minRow) {
+                StencilKernel.european(next, current, minRow, holdEnd - 1, dqu, dq0, dqd);
+            }
+
+            // Scan down to the new boundary
+            int i = holdEnd;
+            for (; i <= maxRow; i++) {
+                double continuationValue = dqu * next[i - 1] + dq0 * next[i] + dqd * next[i + 1];
+                if (exercise[i] > 0 && exercise[i] >= continuationValue) {
+                    break;
+                }
+                current[i] = continuationValue;
+            }
+            boundary = i;
+
+            // Exercise region
+            if (boundary <= maxRow) {
+                System.arraycopy(exercise, boundary, current, boundary, maxRow - boundary + 1);
+            }
+            boundaryRows[j] = boundary;
+
+            double[] temp = next;
+            next = current;
+            current = temp;
+        }
+
+        for (int j = 0; j <= N; j++) {
+            criticalPrices[j] = boundaryRows[j] <= N + j ? S.rowPrice(boundaryRows[j]) : Double.NaN;
+        }
+
+        return new Result(next[N], boundaryRows, criticalPrices);
+    }
+}
@@ -0,0 +1,177 @@
+package com.bsc.thesis.Options.vanilla.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ParallelInduction - Cache-blocked, time-skewed parallel backward induction
+ * Instead of one parallel loop per time step, the lattice is processed in bands of
+ * several time steps. Each band is split into row tiles, and every tile computes all
+ * steps of the band inside two small scratch buffers: it starts from its rows plus a
+ * halo of one row per step on each side, and the valid range shrinks by one row per
+ * step on both ends (a trapezoid), so tiles never wait for each other inside a band.
+ * The halo is recomputed by neighbouring tiles, which costs 2*band/tile extra work.
+ * All buffers are allocated once per induction, nothing is allocated per step.
+ */
+public class ParallelInduction {
+
+    private static final ForkJoinPool pool = new ForkJoinPool();
+
+    /** Rows per tile, the two scratch buffers of a tile stay in L2 */
+    public static final int TILE_WIDTH = 2048;
+
+    /** Time steps per band */
+    public static final int BAND_STEPS = 64;
+
+    /**
+     * Rule applied to the continuation values of a step, e.g. early exercise or knock-out.
+     * The stencil has already written the discounted continuation values; the rule may
+     * overwrite them in place.
+     */
+    @FunctionalInterface
+    public interface NodeRule {
+        /**
+         * @param step time step of the values
+         * @param values buffer holding the values, row i is at values[i - offset]
+         * @param offset row of values[0]
+         * @param from first row to update
+         * @param to last row to update (inclusive)
+         */
+        void apply(int step, double[] values, int offset, int from, int to);
+    }
+
+    /**
+     * Backward induction from maturity to the root
+     * @param terminal option values of rows 0..2N at step N (overwritten)
+     * @param N number of steps
+     * @param dqu discounted up probability
+     * @param dq0 discounted middle probability
+     * @param dqd discounted down probability
+     * @param rule rule applied after the stencil at every step, or null for a European induction
+     * @return option value at the root
+     */
+    public static double price(double[] terminal, int N, double dqu, double dq0, double dqd, NodeRule rule) {
+        return induct(terminal, N, N, 0, dqu, dq0, dqd, rule)[N];
+    }
+
+    /**
+     * Backward induction between two time steps
+     * @param values option values of rows 0..2N at step fromStep (may be overwritten)
+     * @param N number of steps of the lattice
+     * @param fromStep step of the given values
+     * @param toStep step to induct to
+     * @param dqu discounted up probability
+     * @param dq0 discounted middle probability
+     * @param dqd discounted down probability
+     * @param rule rule applied after the stencil at every step, or null for a European induction
+     * @return array whose rows N-toStep..N+toStep hold the values at step toStep
+     */
+    public static double[] induct(double[] values, int N, int fromStep, int toStep,
+                                  double dqu, double dq0, double dqd, NodeRule rule) {
+        if (values.length != 2 * N + 1) {
+            throw new IllegalArgumentException("Values must have 2N+1 rows. Got: " + values.length);
+        }
+        if (toStep < 0 || fromStep > N || toStep > fromStep) {
+            throw new IllegalArgumentException("Invalid steps, need 0 <= toStep <= fromStep <= N. Got: "
+                    + fromStep + " -> " + toStep);
+        }
+
+        final int maxTiles = (2 * fromStep + TILE_WIDTH) / TILE_WIDTH;
+        final double[][] scratch = new double[2 * maxTiles][TILE_WIDTH + 2 * BAND_STEPS];
+
+        double[] src = values;
+        double[] dst = new double[values.length];
+
+        for (int level = fromStep; level > toStep; ) {
+            final int steps = Math.min(BAND_STEPS, level - toStep);
+            final int target = level - steps;
+            final int first = N - target;
+            final int tiles = (2 * target + TILE_WIDTH) / TILE_WIDTH;
+
+            Band band = new Band(src, dst, scratch, level, steps, first, N + target, dqu, dq0, dqd, rule);
+            if (tiles == 1) {
+                band.computeTile(0);
+            } else {
+                pool.invoke(new TileRange(band, 0, tiles));
+            }
+
+            double[] temp = src;
+            src = dst;
+            dst = temp;
+            level = target;
+        }
+
+        return src;
+    }
+
+    private static final class Band {
+        final double[] src, dst;
+        final double[][] scratch;
+        final int level, steps, first, last;
+        final double dqu, dq0, dqd;
+        final NodeRule rule;
+
+        Band(double[] src, double[] dst, double[][] scratch, int level, int steps, int first, int last,
+             double dqu, double dq0, double dqd, NodeRule rule) {
+            this.src = src;
+            this.dst = dst;
+            this.scratch = scratch;
+            this.level = level;
+            this.steps = steps;
+            this.first = first;
+            this.last = last;
+            this.dqu = dqu;
+            this.dq0 = dq0;
+            this.dqd = dqd;
+            this.rule = rule;
+        }
+
+        void computeTile(int tile) {
+            final int a = first + tile * TILE_WIDTH;
+            final int b = Math.min(a + TILE_WIDTH - 1, last);
+            final int offset = a - steps;
+
+            double[] next = scratch[2 * tile];
+            double[] current = scratch[2 * tile + 1];
+            System.arraycopy(src, offset, next, 0, b - a + 1 + 2 * steps);
+
+            // Trapezoid: one row fewer on each side per step
+            for (int s = 1; s <= steps; s++) {
+                final int from = a - steps + s;
+                final int to = b + steps - s;
+                StencilKernel.european(next, current, from - offset, to - offset, dqu, dq0, dqd);
+                if (rule != null) {
+                    rule.apply(level - s, current, offset, from, to);
+                }
+
+                double[] temp = next;
+                next = current;
+                current = temp;
+            }
+
+            System.arraycopy(next, a - offset, dst, a, b - a + 1);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class TileRange extends RecursiveAction {
+        private final Band band;
+        private final int lo, hi;
+
+        TileRange(Band band, int lo, int hi) {
+            this.band = band;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                band.computeTile(lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new TileRange(band, lo, mid), new TileRange(band, mid, hi));
+        }
+    }
+}
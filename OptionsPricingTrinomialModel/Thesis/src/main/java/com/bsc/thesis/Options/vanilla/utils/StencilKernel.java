@@ -0,0 +1,88 @@
+package com.bsc.thesis.Options.vanilla.utils;
+
+/**
+ * StencilKernel - Backward induction step of the trinomial model
+ * One time step of the induction is the 3-point stencil
+ * current[i] = dqu*next[i-1] + dq0*next[i] + dqd*next[i+1]
+ * with the discount factor already folded into the probabilities.
+ * When the jdk.incubator.vector module is available (run with
+ * --add-modules jdk.incubator.vector) the step runs on DoubleVector lanes,
+ * otherwise it falls back to the scalar loop. Both give bitwise identical results.
+ */
+public class StencilKernel {
+
+    private static final boolean VECTORIZED = detectVectorSupport();
+
+    private static boolean detectVectorSupport() {
+        if (Boolean.getBoolean("thesis.scalarKernel")) {
+            return false;
+        }
+        try {
+            return VectorStencilKernel.lanes() > 1;
+        } catch (LinkageError e) {
+            // jdk.incubator.vector is not resolved at runtime
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the Vector API kernel is used
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * European step over rows from..to (inclusive)
+     * @param next option values at step j+1
+     * @param current option values at step j (output)
+     * @param from first row
+     * @param to last row
+     * @param dqu discounted up probability
+     * @param dq0 discounted middle probability
+     * @param dqd discounted down probability
+     */
+    public static void european(double[] next, double[] current, int from, int to,
+                                double dqu, double dq0, double dqd) {
+        if (VECTORIZED) {
+            VectorStencilKernel.european(next, current, from, to, dqu, dq0, dqd);
+        } else {
+            europeanScalar(next, current, from, to, dqu, dq0, dqd);
+        }
+    }
+
+    /**
+     * American step over rows from..to (inclusive), max(exercise, continuation)
+     * @param next option values at step j+1
+     * @param current option values at step j (output)
+     * @param exercise exercise value of every row
+     * @param from first row
+     * @param to last row
+     * @param dqu discounted up probability
+     * @param dq0 discounted middle probability
+     * @param dqd discounted down probability
+     */
+    public static void american(double[] next, double[] current, double[] exercise, int from, int to,
+                                double dqu, double dq0, double dqd) {
+        if (VECTORIZED) {
+            VectorStencilKernel.american(next, current, exercise, from, to, dqu, dq0, dqd);
+        } else {
+            americanScalar(next, current, exercise, from, to, dqu, dq0, dqd);
+        }
+    }
+
+    public static void europeanScalar(double[] next, double[] current, int from, int to,
+                                      double dqu, double dq0, double dqd) {
+        for (int i = from; i <= to; i++) {
+            current[i] = dqu * next[i - 1] + dq0 * next[i] + dqd * next[i + 1];
+        }
+    }
+
+    public static void americanScalar(double[] next, double[] current, double[] exercise, int from, int to,
+                                      double dqu, double dq0, double dqd) {
+        for (int i = from; i <= to; i++) {
+            double continuationValue = dqu * next[i - 1] + dq0 * next[i] + dqd * next[i + 1];
+            current[i] = Math.max(exercise[i], continuationValue);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.bsc.thesis.Options.vanilla.utils;
+
+/**
+ * StockLattice - Closed-form view of the trinomial stock price tree
+ * Every node of the tree is S0*exp(k*u), so instead of materializing the
+ * (2N+1) x (N+1) matrix of {@link StockPricesTree#generateStockPrices} only
+ * the power table exp(k*u), k = -N..N, of size 2N+1 is kept.
+ * Rows and steps use the same layout as the materialized tree:
+ * row N is the center, row i holds S0*exp((N-i)u) and at step j only
+ * rows N-j..N+j are reachable.
+ */
+public class StockLattice {
+
+    private final double S0;
+    private final int N;
+    private final double u;
+
+    // powers[k + N] = exp(k*u), k = -N..N
+    private final double[] powers;
+
+    /**
+     * Creates a trinomial stock price lattice
+     * @param S0 initial stock price (must be positive)
+     * @param N number of time steps (must be non-negative)
+     * @param u volatility parameter (must be positive)
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public StockLattice(double S0, int N, double u) {
+        if (S0 <= 0) {
+            throw new IllegalArgumentException("Initial stock price S0 must be positive. Got: " + S0);
+        }
+        if (N < 0) {
+            throw new IllegalArgumentException("Number of steps N must be non-negative. Got: " + N);
+        }
+        if (u <= 0) {
+            throw new IllegalArgumentException("Volatility parameter u must be positive. Got: " + u);
+        }
+
+        this.S0 = S0;
+        this.N = N;
+        this.u = u;
+        this.powers = new double[2 * N + 1];
+
+        // Fill the power table outwards from the center, like the tree does column by column
+        final double expUp = Math.exp(u);
+        final double expDown = Math.exp(-u);
+        powers[N] = 1.0;
+        for (int k = 1; k <= N; k++) {
+            powers[N + k] = powers[N + k - 1] * expUp;
+            powers[N - k] = powers[N - k + 1] * expDown;
+        }
+    }
+
+    /**
+     * Stock price at a node of the tree
+     * @param step time step (0..N)
+     * @param row row index (0..2N)
+     * @return S0*exp((N-row)u), or NaN if the node is not reachable at this step
+     */
+    public double price(int step, int row) {
+        if (step < 0 || step > N || row < N - step || row > N + step) {
+            return Double.NaN;
+        }
+        return S0 * powers[2 * N - row];
+    }
+
+    /**
+     * Stock price of a row regardless of the time step, i.e. S0*exp((N-row)u)
+     * @param row row index (0..2N)
+     * @return stock price of the row
+     */
+    public double rowPrice(int row) {
+        return S0 * powers[2 * N - row];
+    }
+
+    /**
+     * Factor exp(k*u) of the power table
+     * @param k number of net up moves (-N..N)
+     * @return exp(k*u)
+     */
+    public double power(int k) {
+        return powers[k + N];
+    }
+
+    /**
+     * First reachable row at a time step
+     */
+    public int minRow(int step) {
+        return N - step;
+    }
+
+    /**
+     * Last reachable row at a time step
+     */
+    public int maxRow(int step) {
+        return N + step;
+    }
+
+    public double getS0() {
+        return S0;
+    }
+
+    public int getSteps() {
+        return N;
+    }
+
+    public double getU() {
+        return u;
+    }
+
+    /**
+     * Number of rows of the tree, 2N+1
+     */
+    public int getRows() {
+        return 2 * N + 1;
+    }
+
+    /**
+     * Materializes the lattice as the (2N+1) x (N+1) matrix produced by
+     * {@link StockPricesTree#generateStockPrices}, with NaN for unreachable nodes.
+     * Only meant for small trees, e.g. printing with {@link StockPricesTree#printTree}.
+     */
+    public double[][] toArray() {
+        double[][] tree = new double[2 * N + 1][N + 1];
+        for (int row = 0; row < tree.length; row++) {
+            for (int step = 0; step <= N; step++) {
+                tree[row][step] = price(step, row);
+            }
+        }
+        return tree;
+    }
+}
@@ -86,6 +86,19 @@ public class StockPricesTree {
         return stockTree;
     }
 
+    /**
+     * Generates a trinomial stock price lattice without materializing the tree.
+     * Every node is S0*exp(k*u), so only the 2N+1 power factors are stored
+     * @param S0 initial stock price (must be positive)
+     * @param N number of time steps (must be non-negative)
+     * @param u volatility parameter (must be positive)
+     * @return lattice view with O(1) price(step,row)
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public static StockLattice generateStockLattice(double S0, int N, double u) {
+        return new StockLattice(S0, N, u);
+    }
+
     /**
      * Utility method to print the stock price tree in a readable format
      */
@@ -35,21 +35,10 @@ public class TrinomialOptionPricing {
         }
 
         // Calculate risk-neutral probabilities
-        final double expRH = Math.exp(r * h);
-        final double expU = Math.exp(u);
-        final double expNegU = Math.exp(-u);
-        final double denominator = expU - expNegU;
-
-        if (Math.abs(denominator) < 1e-10) {
-            throw new IllegalArgumentException("Denominator too small, u parameter may cause numerical instability");
-        }
-
-        final double q0 = 1 - 2 * p;
-        final double qu = (expRH - expNegU) / denominator - q0 * (1 - expNegU) / denominator;
-        final double qd = (expU - expRH) / denominator - q0 * (expU - 1) / denominator;
-
-        // Validate probabilities sum to approximately 1
-        validateProbabilities(qu, q0, qd, expRH);
+        final double[] Q = riskNeutralProbabilities(r, p, h, u);
+        final double qu = Q[0];
+        final double q0 = Q[1];
+        final double qd = Q[2];
 
         // Terminal payoff
         for (int i = 0; i < M; i++) {
@@ -90,6 +79,101 @@ public class TrinomialOptionPricing {
         return P[rootRow][0];
     }
 
+    /**
+     * Prices an option using the trinomial model with two rolling 1-D columns
+     * instead of the full (2N+1) x (N+1) price matrix and stock tree.
+     * Node prices are computed on the fly as S0*exp((N-i)u), so memory is O(N)
+     * and the root price is the same as {@link #priceOption(double[][], DoubleUnaryOperator, double, double, double, double)}
+     * @param S0 initial stock price
+     * @param N number of time steps
+     * @param payoffFunc payoff function
+     * @param r risk-free rate
+     * @param p probability parameter
+     * @param h time step size
+     * @param u volatility parameter
+     * @return option price
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public static double priceOptionRolling(double S0, int N, DoubleUnaryOperator payoffFunc,
+                                            double r, double p, double h, double u) {
+        // Input validation
+        validateLatticeInputs(S0, N, r, p, h, u);
+
+        return priceOption(new StockLattice(S0, N, u), payoffFunc, r, p, h);
+    }
+
+    /**
+     * Prices an option on a closed-form stock lattice with two rolling 1-D columns
+     * @param S stock price lattice, also gives the volatility parameter u
+     * @param payoffFunc payoff function
+     * @param r risk-free rate
+     * @param p probability parameter
+     * @param h time step size
+     * @return option price
+     * @throws IllegalArgumentException for invalid parameters
+     */
+    public static double priceOption(StockLattice S, DoubleUnaryOperator payoffFunc,
+                                     double r, double p, double h) {
+        final double u = S.getU();
+        validateLatticeInputs(S.getS0(), S.getSteps(), r, p, h, u);
+
+        final int N = S.getSteps();
+        final double[] Q = riskNeutralProbabilities(r, p, h, u);
+        final double discountFactor = Math.exp(-r * h);
+        final double dqu = discountFactor * Q[0];
+        final double dq0 = discountFactor * Q[1];
+        final double dqd = discountFactor * Q[2];
+
+        final int M = S.getRows();
+        double[] next = new double[M];
+        double[] current = new double[M];
+
+        // Terminal payoff, row i holds S0*exp((N-i)u)
+        for (int i = 0; i < M; i++) {
+            next[i] = payoffFunc.applyAsDouble(S.rowPrice(i));
+        }
+
+        // Backward induction, at step j only rows N-j..N+j are reachable
+        for (int j = N - 1; j >= 0; j--) {
+            StencilKernel.european(next, current, N - j, N + j, dqu, dq0, dqd);
+
+            double[] temp = next;
+            next = current;
+            current = temp;
+        }
+
+        return next[N];
+    }
+
+    /**
+     * Calculates the risk-neutral probabilities of the trinomial model
+     * @param r risk-free rate
+     * @param p probability parameter
+     * @param h time step size
+     * @param u volatility parameter
+     * @return {qu, q0, qd}
+     * @throws IllegalArgumentException if the probabilities are not valid
+     */
+    public static double[] riskNeutralProbabilities(double r, double p, double h, double u) {
+        final double expRH = Math.exp(r * h);
+        final double expU = Math.exp(u);
+        final double expNegU = Math.exp(-u);
+        final double denominator = expU - expNegU;
+
+        if (Math.abs(denominator) < 1e-10) {
+            throw new IllegalArgumentException("Denominator too small, u parameter may cause numerical instability");
+        }
+
+        final double q0 = 1 - 2 * p;
+        final double qu = (expRH - expNegU) / denominator - q0 * (1 - expNegU) / denominator;
+        final double qd = (expU - expRH) / denominator - q0 * (expU - 1) / denominator;
+
+        // Validate probabilities sum to approximately 1
+        validateProbabilities(qu, q0, qd, expRH);
+
+        return new double[]{qu, q0, qd};
+    }
+
     public static double[][] americanPut(double[][] S, double K, double r,
                                          int N, double p, double h, double u) {
 
@@ -119,6 +203,22 @@ public class TrinomialOptionPricing {
         return A;
     }
 
+    /**
+     * Computes the price of an American put option on a closed-form stock lattice,
+     * keeping only two rolling columns instead of the full (2N+1) x (N+1) matrix.
+     * The stencil only runs in the holding region, see {@link FreeBoundaryAmericanPut}
+     * @param S stock price lattice, also gives the price change u when the stock price goes up
+     * @param K strike price
+     * @param r risk-free interest rate
+     * @param p probability parameter
+     * @param h length of each time step
+     * @return american put price at the root
+     */
+    public static double americanPut(StockLattice S, double K, double r,
+                                     double p, double h) {
+        return FreeBoundaryAmericanPut.americanPut(S, K, r, p, h).price;
+    }
+
     private static void validateInputs(double[][] S, double r, double p, double h, double u) {
         if (S == null || S.length == 0 || S[0].length == 0) {
             throw new IllegalArgumentException("Stock price tree must not be null or empty");
@@ -148,6 +248,32 @@ public class TrinomialOptionPricing {
         }
     }
 
+    private static void validateLatticeInputs(double S0, int N, double r, double p, double h, double u) {
+        if (S0 <= 0) {
+            throw new IllegalArgumentException("Initial stock price S0 must be positive. Got: " + S0);
+        }
+
+        if (N < 0) {
+            throw new IllegalArgumentException("Number of steps N must be non-negative. Got: " + N);
+        }
+
+        if (h <= 0) {
+            throw new IllegalArgumentException("Time step h must be positive. Got: " + h);
+        }
+
+        if (u <= 0) {
+            throw new IllegalArgumentException("Volatility parameter u must be positive. Got: " + u);
+        }
+
+        if (p < 0 || p > 0.5) {
+            throw new IllegalArgumentException("Probability parameter p must be between 0 and 0.5. Got: " + p);
+        }
+
+        if (r < 0) {
+            throw new IllegalArgumentException("Risk-free rate r must be non-negative. Got: " + r);
+        }
+    }
+
     private static void validateProbabilities(double qu, double q0, double qd, double expRH) {
         final double sum = qu + q0 + qd;
         final double tolerance = 1e-8;
@@ -0,0 +1,53 @@
+package com.bsc.thesis.Options.vanilla.utils;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of {@link StencilKernel}.
+ * Only touched through StencilKernel, so the class is never linked
+ * when the incubator module is missing.
+ */
+class VectorStencilKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    static void european(double[] next, double[] current, int from, int to,
+                         double dqu, double dq0, double dqd) {
+        int i = from;
+        final int bound = from + SPECIES.loopBound(to - from + 1);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector up = DoubleVector.fromArray(SPECIES, next, i - 1);
+            DoubleVector middle = DoubleVector.fromArray(SPECIES, next, i);
+            DoubleVector down = DoubleVector.fromArray(SPECIES, next, i + 1);
+            // same evaluation order as the scalar loop, no fma, so results are bitwise equal
+            up.mul(dqu).add(middle.mul(dq0)).add(down.mul(dqd)).intoArray(current, i);
+        }
+        // Scalar tail
+        for (; i <= to; i++) {
+            current[i] = dqu * next[i - 1] + dq0 * next[i] + dqd * next[i + 1];
+        }
+    }
+
+    static void american(double[] next, double[] current, double[] exercise, int from, int to,
+                         double dqu, double dq0, double dqd) {
+        int i = from;
+        final int bound = from + SPECIES.loopBound(to - from + 1);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector up = DoubleVector.fromArray(SPECIES, next, i - 1);
+            DoubleVector middle = DoubleVector.fromArray(SPECIES, next, i);
+            DoubleVector down = DoubleVector.fromArray(SPECIES, next, i + 1);
+            DoubleVector continuation = up.mul(dqu).add(middle.mul(dq0)).add(down.mul(dqd));
+            DoubleVector.fromArray(SPECIES, exercise, i).max(continuation).intoArray(current, i);
+        }
+        // Scalar tail
+        for (; i <= to; i++) {
+            double continuationValue = dqu * next[i - 1] + dq0 * next[i] + dqd * next[i + 1];
+            current[i] = Math.max(exercise[i], continuationValue);
+        }
+    }
+}
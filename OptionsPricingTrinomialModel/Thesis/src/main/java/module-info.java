@@ -11,6 +11,8 @@ module com.bsc.thesis {
     requires eu.hansolo.tilesfx;
     requires com.almasb.fxgl.all;
 
+    requires static jdk.incubator.vector;
+
     opens com.bsc.thesis to javafx.fxml;
     exports com.bsc.thesis;
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.bsc.thesis.Options.exotic;
+
+import com.bsc.thesis.Options.montecarlo.Normal;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Node-aligned barrier lattice against closed forms
+ */
+class BarrierTest {
+
+    private static final double K = 100, r = 0.05, sigma = 0.25;
+
+    @Test
+    void singleBarrierMatchesClosedForm() {
+        double S0 = 100, T = 1;
+        Barrier.Result down = Barrier.calculateBarrierPair(true, S0, K, 90, r, T, sigma, 1000, null);
+        assertEquals(downAndOutCall(S0, K, 90, r, T, sigma), down.outCall, 0.005 * down.outCall);
+        assertEquals(blackScholes(true, S0, K, r, T, sigma) - downAndOutCall(S0, K, 90, r, T, sigma), down.inCall, 0.005 * down.inCall);
+        assertEquals(blackScholes(true, S0, K, r, T, sigma), down.vanillaCall, 0.005 * down.vanillaCall);
+
+        Barrier.Result up = Barrier.calculateBarrierPair(false, S0, K, 110, r, T, sigma, 1000, null);
+        assertEquals(upAndOutPut(S0, K, 110, r, T, sigma), up.outPut, 0.005 * up.outPut);
+        assertEquals(blackScholes(false, S0, K, r, T, sigma) - upAndOutPut(S0, K, 110, r, T, sigma), up.inPut, 0.005 * up.inPut);
+        assertEquals(blackScholes(false, S0, K, r, T, sigma), up.vanillaPut, 0.005 * up.vanillaPut);
+    }
+
+    @Test
+    void doubleBarrierConvergesSmoothlyNextToABarrier() {
+        // S0 within half a layer of L or U puts a barrier on or next to the root row
+        double L = 90, U = 120, T = 1;
+        for (double S0 : new double[]{90.3, 119.7}) {
+            double exact = doubleKnockOutCall(S0, K, L, U, r, T, sigma);
+            double previous = Double.POSITIVE_INFINITY;
+            for (int N : new int[]{800, 1600, 3200}) {
+                double price = Barrier.calculateDoubleBarrierOption(true, true, S0, K, L, U, 0, r, T, sigma, N, null);
+                double error = Math.abs(price - exact);
+                assertTrue(error < previous, "S0 = " + S0 + ", N = " + N + ": error " + error + " after " + previous);
+                assertEquals(exact, price, 0.01 * exact, "S0 = " + S0 + ", N = " + N);
+                previous = error;
+            }
+        }
+    }
+
+    @Test
+    void doubleBarrierMatchesKunitomoIkeda() {
+        double L = 80, U = 120, T = 0.5;
+        for (double S0 : new double[]{85, 97, 100, 115}) {
+            double exact = doubleKnockOutCall(S0, K, L, U, r, T, sigma);
+            double price = Barrier.calculateDoubleBarrierOption(true, true, S0, K, L, U, 0, r, T, sigma, 1000, null);
+            assertEquals(exact, price, 0.005 * exact + 1e-4, "S0 = " + S0);
+        }
+    }
+
+    @Test
+    void knockInPlusKnockOutIsVanilla() {
+        // The knock-in is inducted as its own not-yet-knocked vector, so this checks both against the vanilla
+        double S0 = 100, T = 1;
+        int[] monthly = new int[12];
+        for (int i = 0; i < 12; i++) {
+            monthly[i] = (i + 1) * 50;
+        }
+        for (int[] schedule : new int[][]{null, monthly, {0}, {600}}) {
+            for (boolean isDown : new boolean[]{true, false}) {
+                Barrier.Result pair = Barrier.calculateBarrierPair(isDown, S0, K, isDown ? 90 : 110, r, T, sigma, 600, schedule);
+                assertEquals(pair.vanillaCall, pair.inCall + pair.outCall, 1e-10);
+                assertEquals(pair.vanillaPut, pair.inPut + pair.outPut, 1e-10);
+            }
+        }
+    }
+
+    @Test
+    void knockInMatchesThePair() {
+        double S0 = 100, T = 1;
+        for (boolean isDown : new boolean[]{true, false}) {
+            double B = isDown ? 85 : 115;
+            Barrier.Result pair = Barrier.calculateBarrierPair(isDown, S0, K, B, r, T, sigma, 400, null);
+            assertEquals(pair.inCall, Barrier.calculateKnockInOption(true, isDown, S0, K, B, r, T, sigma, 400, null), 1e-12);
+            assertEquals(pair.inPut, Barrier.calculateKnockInOption(false, isDown, S0, K, B, r, T, sigma, 400, null), 1e-12);
+            assertEquals(pair.outCall, Barrier.calculateBarrierOption(true, isDown, S0, K, B, r, T, sigma, 400, null), 1e-12);
+        }
+    }
+
+    @Test
+    void minimumStepsPutsTheBarrierOnALayer() {
+        double S0 = 100, T = 1;
+        for (double B : new double[]{99.5, 99.9, 100.2, 100.7}) {
+            int N = Barrier.minimumSteps(S0, B, sigma, T);
+            assertTrue(Barrier.barrierLayer(S0, B, sigma, T / N) >= 1, "B = " + B);
+            assertThrows(IllegalArgumentException.class, () -> Barrier.barrierLayer(S0, B, sigma, T / (N - 1)), "B = " + B);
+        }
+    }
+
+    static double blackScholes(boolean isCall, double S, double X, double r, double T, double sigma) {
+        double d1 = (Math.log(S / X) + (r + 0.5 * sigma * sigma) * T) / (sigma * Math.sqrt(T));
+        double d2 = d1 - sigma * Math.sqrt(T);
+        return isCall
+                ? S * Normal.cdf(d1) - X * Math.exp(-r * T) * Normal.cdf(d2)
+                : X * Math.exp(-r * T) * Normal.cdf(-d2) - S * Normal.cdf(-d1);
+    }
+
+    /**
+     * Merton / Reiner-Rubinstein down-and-out call for B <= X, vanilla minus the down-and-in
+     */
+    static double downAndOutCall(double S, double X, double B, double r, double T, double sigma) {
+        double sT = sigma * Math.sqrt(T);
+        double lambda = (r + 0.5 * sigma * sigma) / (sigma * sigma);
+        double y = Math.log(B * B / (S * X)) / sT + lambda * sT;
+        double downIn = S * Math.pow(B / S, 2 * lambda) * Normal.cdf(y)
+                - X * Math.exp(-r * T) * Math.pow(B / S, 2 * lambda - 2) * Normal.cdf(y - sT);
+        return blackScholes(true, S, X, r, T, sigma) - downIn;
+    }
+
+    /**
+     * Up-and-out put for B >= X, vanilla minus the up-and-in
+     */
+    static double upAndOutPut(double S, double X, double B, double r, double T, double sigma) {
+        double sT = sigma * Math.sqrt(T);
+        double lambda = (r + 0.5 * sigma * sigma) / (sigma * sigma);
+        double y = Math.log(B * B / (S * X)) / sT + lambda * sT;
+        double upIn = -S * Math.pow(B / S, 2 * lambda) * Normal.cdf(-y)
+                + X * Math.exp(-r * T) * Math.pow(B / S, 2 * lambda - 2) * Normal.cdf(-y + sT);
+        return blackScholes(false, S, X, r, T, sigma) - upIn;
+    }
+
+    /**
+     * Kunitomo-Ikeda double knock-out call with flat barriers and no carry other than r
+     */
+    static double doubleKnockOutCall(double S, double X, double L, double U, double r, double T, double sigma) {
+        double sT = sigma * Math.sqrt(T);
+        double mu = 2 * r / (sigma * sigma) + 1;
+        double drift = (r + 0.5 * sigma * sigma) * T;
+        double first = 0, second = 0;
+        for (int n = -10; n <= 10; n++) {
+            double d1 = (Math.log(S * Math.pow(U, 2 * n) / (X * Math.pow(L, 2 * n))) + drift) / sT;
+            double d2 = (Math.log(S * Math.pow(U, 2 * n) / (U * Math.pow(L, 2 * n))) + drift) / sT;
+            double d3 = (Math.log(Math.pow(L, 2 * n + 2) / (X * S * Math.pow(U, 2 * n))) + drift) / sT;
+            double d4 = (Math.log(Math.pow(L, 2 * n + 2) / (U * S * Math.pow(U, 2 * n))) + drift) / sT;
+            double a = Math.pow(U / L, n);
+            double b = Math.pow(L, n + 1) / (Math.pow(U, n) * S);
+            first += Math.pow(a, mu) * (Normal.cdf(d1) - Normal.cdf(d2)) - Math.pow(b, mu) * (Normal.cdf(d3) - Normal.cdf(d4));
+            second += Math.pow(a, mu - 2) * (Normal.cdf(d1 - sT) - Normal.cdf(d2 - sT))
+                    - Math.pow(b, mu - 2) * (Normal.cdf(d3 - sT) - Normal.cdf(d4 - sT));
+        }
+        return S * first - X * Math.exp(-r * T) * second;
+    }
+}
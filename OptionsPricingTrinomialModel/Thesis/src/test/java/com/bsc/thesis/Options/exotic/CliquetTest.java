@@ -0,0 +1,68 @@
+package com.bsc.thesis.Options.exotic;
+
+import com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Period-by-period cliquet against a brute-force path enumeration and the thesis figure
+ */
+class CliquetTest {
+
+    @Test
+    void matchesPathEnumeration() {
+        double T = 1, sigma = 0.3, r = 0.02, p = 0.25;
+        double[][] bounds = {
+                {-0.05, 0.1, 0.0, 0.2},
+                {-0.1, 0.05, -0.05, Double.POSITIVE_INFINITY},
+                {0.0, 0.08, 0.05, 0.12}
+        };
+        for (double[] b : bounds) {
+            double exact = enumerate(b[0], b[1], b[2], b[3], T, 3, 4, sigma, r, p);
+            assertEquals(exact, Cliquet.calculateCliquetOption(b[0], b[1], b[2], b[3], T, 3, 4, sigma, r, p), 1e-13,
+                    "local [" + b[0] + ", " + b[1] + "], global [" + b[2] + ", " + b[3] + "]");
+        }
+    }
+
+    @Test
+    void convergesToTheThesisFigure() {
+        // Figure 5.1 parameters, reference price 0.174
+        double price = Cliquet.calculateCliquetOption(0, 0.08, 0.16, Double.POSITIVE_INFINITY, 5, 5, 1000, 0.2, 0.03, 1.0 / 6);
+        assertEquals(0.174, price, 5e-4);
+    }
+
+    /**
+     * Discounted payoff over all 3^(m*N) paths
+     */
+    private static double enumerate(double Floc, double Cloc, double Fglob, double Cglob,
+                                    double T, int m, int N, double sigma, double r, double p) {
+        double h = T / (N * m);
+        double u = sigma * Math.sqrt(h / (2 * p));
+        double[] Q = TrinomialOptionPricing.riskNeutralProbabilities(r, p, h, u);
+        int steps = N * m;
+        int paths = 1;
+        for (int i = 0; i < steps; i++) {
+            paths *= 3;
+        }
+
+        double V = 0;
+        for (int code = 0; code < paths; code++) {
+            int rest = code;
+            double probability = 1, sum = 0;
+            int d = 0;
+            for (int step = 1; step <= steps; step++) {
+                int move = rest % 3;
+                rest /= 3;
+                probability *= Q[move];
+                d += 1 - move;
+                if (step % N == 0) {
+                    sum += Math.max(Floc, Math.min(Cloc, Math.exp(d * u) - 1));
+                    d = 0;
+                }
+            }
+            V += probability * Math.max(Fglob, Math.min(Cglob, sum));
+        }
+        return Math.exp(-r * T) * V;
+    }
+}
@@ -0,0 +1,51 @@
+package com.bsc.thesis.Options.exotic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Shared-lattice compound options against the tree-per-node reference, and the grid against single pairs
+ */
+class CompoundTest {
+
+    private static final double S0 = 100, K2 = 100, T2 = 1, r = 0.03, sigma = 0.2, p = 0.25;
+
+    @Test
+    void latticeMatchesTheReference() {
+        int N = 150;
+        for (boolean isCall : new boolean[]{true, false}) {
+            for (boolean onCall : new boolean[]{true, false}) {
+                for (double K1 : new double[]{2, 5, 10}) {
+                    double reference = Compound.euCompoundTri(isCall, onCall, S0, 0.5, T2, N, K1, K2, p, r, sigma);
+                    double price = Compound.euCompoundLattice(isCall, onCall, S0, 0.5, T2, N, K1, K2, p, r, sigma);
+                    assertEquals(reference, price, 1e-14 * Math.max(1, reference),
+                            "isCall = " + isCall + ", onCall = " + onCall + ", K1 = " + K1);
+                }
+            }
+        }
+    }
+
+    @Test
+    void gridMatchesEveryPair() {
+        int N = 400;
+        double[] K1s = {1, 4, 8, 15};
+        double[] T1s = {0.1, 0.35, 0.5, 0.8, 1.0};
+        for (boolean isCall : new boolean[]{true, false}) {
+            double[][] grid = Compound.calculateCompoundGrid(isCall, false, S0, K1s, T1s, K2, T2, r, sigma, p, N);
+            for (int k = 0; k < K1s.length; k++) {
+                for (int t = 0; t < T1s.length; t++) {
+                    assertEquals(Compound.euCompoundLattice(isCall, false, S0, T1s[t], T2, N, K1s[k], K2, p, r, sigma), grid[k][t],
+                            "isCall = " + isCall + ", K1 = " + K1s[k] + ", T1 = " + T1s[t]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void gridRejectsFirstExpiryAfterTheSecond() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Compound.calculateCompoundGrid(true, true, S0, new double[]{5}, new double[]{1.5}, K2, T2, r, sigma, p, 10));
+    }
+}
@@ -0,0 +1,47 @@
+package com.bsc.thesis.Options.exotic;
+
+import com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * One-state lookback induction against a brute-force path enumeration
+ */
+class LookbackTest {
+
+    private static final double S0 = 100, r = 0.03, T = 1, sigma = 0.2, p = 0.25;
+
+    @Test
+    void matchesPathEnumeration() {
+        for (boolean isCall : new boolean[]{true, false}) {
+            for (int N : new int[]{1, 2, 5, 10}) {
+                assertEquals(enumerate(isCall, N), Lookback.calculateLookbackOption(isCall, S0, r, T, sigma, p, N), 1e-12,
+                        "isCall = " + isCall + ", N = " + N);
+            }
+        }
+    }
+
+    /**
+     * Discounted payoff over all 3^N paths, the extremes include S0
+     */
+    private static double enumerate(boolean isCall, int N) {
+        double h = T / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+        double[] Q = TrinomialOptionPricing.riskNeutralProbabilities(r, p, h, u);
+        return Math.exp(-r * T) * walk(isCall, N, 0, S0, S0, S0, 1.0, u, Q);
+    }
+
+    private static double walk(boolean isCall, int N, int step, double S, double min, double max, double probability,
+                               double u, double[] Q) {
+        if (step == N) {
+            return probability * (isCall ? S - min : max - S);
+        }
+        double V = 0;
+        for (int move = 0; move < 3; move++) {
+            double next = S * Math.exp((1 - move) * u);
+            V += walk(isCall, N, step + 1, next, Math.min(min, next), Math.max(max, next), probability * Q[move], u, Q);
+        }
+        return V;
+    }
+}
@@ -0,0 +1,34 @@
+package com.bsc.thesis.Options.exotic.utils;
+
+import com.bsc.thesis.Options.exotic.Asian;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Stack-based enumeration against the recursive path walk
+ */
+class ExactAsianEnumeratorTest {
+
+    private static final double S0 = 100, K = 100, r = 0.03, T = 1, sigma = 0.2, p = 0.25;
+
+    @Test
+    void matchesTheRecursion() {
+        for (boolean isCall : new boolean[]{true, false}) {
+            for (int N : new int[]{1, 2, 3, 7, 11}) {
+                double reference = Asian.calculateAsianOption(isCall, S0, K, r, T, sigma, p, N);
+                assertEquals(reference, ExactAsianEnumerator.price(isCall, S0, K, r, T, sigma, p, N), 4e-13 * reference,
+                        "isCall = " + isCall + ", N = " + N);
+            }
+        }
+    }
+
+    @Test
+    void repeatedRunsAreBitIdentical() {
+        // Deep enough for fork/join subtrees, whose partial sums are merged in a fixed order
+        double first = ExactAsianEnumerator.price(true, S0, K, r, T, sigma, p, 12);
+        for (int run = 0; run < 3; run++) {
+            assertEquals(first, ExactAsianEnumerator.price(true, S0, K, r, T, sigma, p, 12));
+        }
+    }
+}
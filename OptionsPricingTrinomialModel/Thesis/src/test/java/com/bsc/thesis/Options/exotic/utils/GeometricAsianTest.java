@@ -0,0 +1,59 @@
+package com.bsc.thesis.Options.exotic.utils;
+
+import com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Log-sum convolution against a brute-force path enumeration
+ */
+class GeometricAsianTest {
+
+    private static final double S0 = 100, K = 100, r = 0.03, T = 1, sigma = 0.2, p = 0.25;
+
+    @Test
+    void matchesPathEnumeration() {
+        for (boolean isCall : new boolean[]{true, false}) {
+            for (int N : new int[]{1, 3, 8, 11}) {
+                assertEquals(enumerate(isCall, N), GeometricAsian.price(isCall, S0, K, r, T, sigma, p, N), 5e-13,
+                        "isCall = " + isCall + ", N = " + N);
+            }
+        }
+    }
+
+    @Test
+    void distributionSumsToOne() {
+        int N = 200;
+        double h = T / N;
+        double[] Q = TrinomialOptionPricing.riskNeutralProbabilities(r, p, h, sigma * Math.sqrt(h / (2 * p)));
+        double sum = 0;
+        for (double P : GeometricAsian.logSumDistribution(N, Q)) {
+            sum += P;
+        }
+        assertEquals(1.0, sum, 1e-12);
+    }
+
+    /**
+     * Discounted payoff over all 3^N paths
+     */
+    private static double enumerate(boolean isCall, int N) {
+        double h = T / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+        double[] Q = TrinomialOptionPricing.riskNeutralProbabilities(r, p, h, u);
+        return Math.exp(-r * T) * walk(isCall, N, 0, 0, 0, 1.0, u, Q);
+    }
+
+    private static double walk(boolean isCall, int N, int step, int level, int logSum, double probability, double u, double[] Q) {
+        if (step == N) {
+            double average = S0 * Math.exp(u * logSum / N);
+            return probability * (isCall ? Math.max(average - K, 0) : Math.max(K - average, 0));
+        }
+        double V = 0;
+        for (int move = 0; move < 3; move++) {
+            int next = level + 1 - move;
+            V += walk(isCall, N, step + 1, next, logSum + next, probability * Q[move], u, Q);
+        }
+        return V;
+    }
+}
@@ -0,0 +1,36 @@
+package com.bsc.thesis.Options.exotic.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Representative averages against path enumeration and against finer grids
+ */
+class RepresentativeAverageAsianTest {
+
+    private static final double S0 = 100, K = 100, r = 0.05, T = 1, sigma = 0.2, p = 0.25;
+
+    @Test
+    void matchesExactEnumeration() {
+        for (boolean isCall : new boolean[]{true, false}) {
+            RepresentativeAverageAsian.Result result = RepresentativeAverageAsian.price(isCall, S0, K, r, T, sigma, p, 10, 40);
+            assertEquals(result.exactPrice, result.price, 1e-3, "isCall = " + isCall);
+            assertEquals(Math.abs(result.price - result.exactPrice), result.errorEstimate, 1e-15);
+        }
+    }
+
+    @Test
+    void errorEstimateTracksTheFinerGrid() {
+        double reference = RepresentativeAverageAsian.price(true, S0, K, r, T, sigma, p, 30, 256).price;
+        for (int averages : new int[]{4, 5, 6, 8, 16}) {
+            RepresentativeAverageAsian.Result result = RepresentativeAverageAsian.price(true, S0, K, r, T, sigma, p, 30, averages);
+            assertTrue(Double.isFinite(result.errorEstimate), "averages = " + averages);
+            assertTrue(Double.isNaN(result.exactPrice));
+            double error = Math.abs(result.price - reference);
+            assertTrue(error <= 3 * result.errorEstimate + 1e-4,
+                    "averages = " + averages + ": error " + error + ", estimate " + result.errorEstimate);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Adaptive stopping on the confidence half-width and on the time budget
+ */
+class AdaptiveMonteCarloTest {
+
+    private static final double S0 = 100, K = 100, r = 0.05, sigma = 0.2, T = 1;
+
+    @Test
+    void reachesTheTargetHalfWidthReproducibly() {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, 12);
+        AdaptiveMonteCarlo.Result first = AdaptiveMonteCarlo.price(model, 3, () -> new PathFunctionals.European(true, K),
+                true, null, 0.05, 0.95, 600_000, AdaptiveMonteCarlo.DEFAULT_MAX_PATHS);
+        AdaptiveMonteCarlo.Result second = AdaptiveMonteCarlo.price(model, 3, () -> new PathFunctionals.European(true, K),
+                true, null, 0.05, 0.95, 600_000, AdaptiveMonteCarlo.DEFAULT_MAX_PATHS);
+        assertTrue(first.converged);
+        assertTrue(first.halfWidth <= 0.05);
+        assertEquals(first.price, second.price, 0.0);
+        assertEquals(first.paths, second.paths);
+
+        double d1 = (Math.log(S0 / K) + (r + 0.5 * sigma * sigma) * T) / (sigma * Math.sqrt(T));
+        double exact = S0 * Normal.cdf(d1) - K * Math.exp(-r * T) * Normal.cdf(d1 - sigma * Math.sqrt(T));
+        assertEquals(exact, first.price, 4 * first.standardError);
+    }
+
+    @Test
+    void smallBudgetStopsAfterTheProbe() {
+        // One block of 4096 antithetic pairs over 2000 dates takes far longer than 1 ms
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, 2000);
+        AdaptiveMonteCarlo.Result result = AdaptiveMonteCarlo.price(model, 3, () -> new PathFunctionals.Asian(true, K),
+                true, null, 1e-6, 0.95, 1, AdaptiveMonteCarlo.DEFAULT_MAX_PATHS);
+        assertFalse(result.converged);
+        assertEquals(2L * MonteCarloEngine.BLOCK_SIZE, result.paths);
+    }
+}
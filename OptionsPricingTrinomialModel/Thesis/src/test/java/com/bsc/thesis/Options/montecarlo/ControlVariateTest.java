@@ -0,0 +1,64 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Antithetic pairs and control variates against plain sampling
+ */
+class ControlVariateTest {
+
+    private static final double S0 = 100, K = 100, r = 0.05, sigma = 0.2, T = 1;
+
+    @Test
+    void europeanControlIsBlackScholes() {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, 12);
+        double sT = sigma * Math.sqrt(T);
+        double d1 = (Math.log(S0 / K) + (r + 0.5 * sigma * sigma) * T) / sT;
+        double call = S0 * Normal.cdf(d1) - K * Math.exp(-r * T) * Normal.cdf(d1 - sT);
+        double put = K * Math.exp(-r * T) * Normal.cdf(sT - d1) - S0 * Normal.cdf(-d1);
+        assertEquals(call, model.discount() * ControlVariate.european(model, true, K).getExpectation(), 1e-12);
+        assertEquals(put, model.discount() * ControlVariate.european(model, false, K).getExpectation(), 1e-12);
+    }
+
+    @Test
+    void geometricControlMatchesItsSimulation() {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, 12);
+        for (boolean isCall : new boolean[]{true, false}) {
+            ControlVariate control = ControlVariate.geometricAsian(model, isCall, K);
+            MonteCarloResult result = MonteCarloEngine.price(model, 200_000, 5, control.getFunctional());
+            assertEquals(model.discount() * control.getExpectation(), result.price, 4 * result.standardError, "isCall = " + isCall);
+        }
+    }
+
+    @Test
+    void plainOverloadIsTheUnreducedEstimator() {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, 12);
+        Supplier<PathFunctional> asian = () -> new PathFunctionals.Asian(true, K);
+        MonteCarloResult plain = MonteCarloEngine.price(model, 20_000, 9, asian);
+        MonteCarloResult none = MonteCarloEngine.price(model, 20_000, 9, asian, false, null);
+        assertEquals(plain.price, none.price, 0.0);
+        assertEquals(plain.standardError, none.standardError, 0.0);
+        assertEquals(1.0, none.varianceReductionFactor);
+    }
+
+    @Test
+    void reducedEstimatorsAgreeWithPlainSampling() {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, 12);
+        Supplier<PathFunctional> asian = () -> new PathFunctionals.Asian(true, K);
+        MonteCarloResult plain = MonteCarloEngine.price(model, 400_000, 1, asian);
+
+        MonteCarloResult antithetic = MonteCarloEngine.price(model, 100_000, 2, asian, true, null);
+        assertTrue(antithetic.varianceReductionFactor > 1.5, "factor " + antithetic.varianceReductionFactor);
+        assertEquals(plain.price, antithetic.price, 4 * Math.hypot(plain.standardError, antithetic.standardError));
+
+        MonteCarloResult controlled = MonteCarloEngine.price(model, 20_000, 3, asian, true,
+                ControlVariate.geometricAsian(model, true, K));
+        assertTrue(controlled.varianceReductionFactor > 100, "factor " + controlled.varianceReductionFactor);
+        assertEquals(plain.price, controlled.price, 4 * Math.hypot(plain.standardError, controlled.standardError));
+    }
+}
@@ -0,0 +1,27 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Least-squares Monte Carlo against the Longstaff-Schwartz reference put
+ */
+class LongstaffSchwartzTest {
+
+    @Test
+    void matchesReferencePut() {
+        // S = 36, K = 40, r = 6%, sigma = 20%, T = 1 with 50 exercise dates: 4.478 in the paper
+        GeometricBrownianMotion model = new GeometricBrownianMotion(36, 0.06, 0.2, 1, 50);
+        MonteCarloResult result = LongstaffSchwartz.price(model, 100_000, 7, LongstaffSchwartz.put(40), 3, false, false);
+        assertEquals(4.478, result.price, 3 * result.standardError);
+    }
+
+    @Test
+    void singlePrecisionStaysWithinTheStandardError() {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(36, 0.06, 0.2, 1, 50);
+        MonteCarloResult exact = LongstaffSchwartz.price(model, 50_000, 3, LongstaffSchwartz.put(40), 3, false, false);
+        MonteCarloResult single = LongstaffSchwartz.price(model, 50_000, 3, LongstaffSchwartz.put(40), 3, false, true);
+        assertEquals(exact.price, single.price, exact.standardError);
+    }
+}
@@ -0,0 +1,84 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Block-parallel engine against a serial run of the same blocks and against Black-Scholes
+ */
+class MonteCarloEngineTest {
+
+    private static final double S0 = 100, K = 100, r = 0.05, sigma = 0.2, T = 1;
+
+    @Test
+    void resultDoesNotDependOnTheBlockOrder() {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, 12);
+        Supplier<PathFunctional> asian = () -> new PathFunctionals.Asian(true, K);
+        long paths = 5 * MonteCarloEngine.BLOCK_SIZE + 123;
+        MonteCarloResult result = MonteCarloEngine.price(model, paths, 42, asian);
+
+        // The same blocks run serially, last block first
+        int blocks = MonteCarloEngine.blockCount(paths);
+        SplittableRandom[] streams = MonteCarloEngine.splitStreams(new SplittableRandom(42), blocks);
+        RunningCovariance[] statistics = new RunningCovariance[blocks];
+        RunningStatistics[] single = new RunningStatistics[blocks];
+        for (int block = blocks - 1; block >= 0; block--) {
+            statistics[block] = new RunningCovariance();
+            single[block] = new RunningStatistics();
+            MonteCarloEngine.simulateBlock(model, streams[block], MonteCarloEngine.blockPaths(paths, block), asian,
+                    false, null, statistics[block], single[block]);
+        }
+        MonteCarloResult serial = MonteCarloEngine.estimate(model, RunningCovariance.reduce(statistics, 0, blocks),
+                RunningStatistics.reduce(single, 0, blocks), false, null);
+
+        assertEquals(serial.price, result.price, 0.0);
+        assertEquals(serial.standardError, result.standardError, 0.0);
+        assertEquals(paths, result.paths);
+    }
+
+    @Test
+    void sameSeedGivesTheSamePrice() {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, 4);
+        Supplier<PathFunctional> call = () -> new PathFunctionals.European(true, K);
+        MonteCarloResult first = MonteCarloEngine.price(model, 50_000, 7, call);
+        assertEquals(first.price, MonteCarloEngine.price(model, 50_000, 7, call).price, 0.0);
+        assertNotEquals(first.price, MonteCarloEngine.price(model, 50_000, 8, call).price);
+    }
+
+    @Test
+    void europeanMatchesBlackScholes() {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, 1);
+        double sT = sigma * Math.sqrt(T);
+        double d1 = (Math.log(S0 / K) + (r + 0.5 * sigma * sigma) * T) / sT;
+        double exact = S0 * Normal.cdf(d1) - K * Math.exp(-r * T) * Normal.cdf(d1 - sT);
+
+        MonteCarloResult result = MonteCarloEngine.price(model, 200_000, MonteCarloEngine.DEFAULT_SEED,
+                () -> new PathFunctionals.European(true, K));
+        assertEquals(exact, result.price, 4 * result.standardError);
+        assertEquals(1.0, result.varianceReductionFactor);
+    }
+
+    @Test
+    void mergedBlocksMatchOnePass() {
+        SplittableRandom random = new SplittableRandom(3);
+        RunningStatistics all = new RunningStatistics();
+        RunningStatistics[] blocks = new RunningStatistics[7];
+        for (int b = 0; b < blocks.length; b++) {
+            blocks[b] = new RunningStatistics();
+            for (int i = 0; i < 100 + 37 * b; i++) {
+                double x = 50 + 10 * random.nextGaussian();
+                all.add(x);
+                blocks[b].add(x);
+            }
+        }
+        RunningStatistics merged = RunningStatistics.reduce(blocks, 0, blocks.length);
+        assertEquals(all.getCount(), merged.getCount());
+        assertEquals(all.getMean(), merged.getMean(), 1e-12);
+        assertEquals(all.getVariance(), merged.getVariance(), 1e-10);
+    }
+}
@@ -0,0 +1,32 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import com.bsc.thesis.Options.Exotic;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Multilevel Monte Carlo against closed forms and plain Monte Carlo on the daily schedule
+ */
+class MultilevelMonteCarloTest {
+
+    private static final double S0 = 100, K = 100, r = 0.03, sigma = 0.2, T = 1;
+
+    @Test
+    void europeanMatchesBlackScholes() {
+        MultilevelMonteCarlo.Result result = Exotic.calculateExoticMultilevel(S0, K, r, T, sigma, 0.02, 11, "European");
+        double d1 = (Math.log(S0 / K) + (r + 0.5 * sigma * sigma) * T) / (sigma * Math.sqrt(T));
+        double exact = S0 * Normal.cdf(d1) - K * Math.exp(-r * T) * Normal.cdf(d1 - sigma * Math.sqrt(T));
+        assertEquals(exact, result.price, 3 * result.rmse);
+        assertTrue(result.rmse <= 0.02 * 1.05, "rmse " + result.rmse);
+    }
+
+    @Test
+    void asianMatchesPlainMonteCarlo() {
+        MultilevelMonteCarlo.Result result = Exotic.calculateExoticMultilevel(S0, K, r, T, sigma, 0.02, 11, "Asian");
+        MonteCarloResult plain = Exotic.calculateExoticMonteCarlo(S0, K, r, T, sigma, 100_000, 5, "Asian");
+        double tolerance = 3 * Math.sqrt(result.rmse * result.rmse + plain.standardError * plain.standardError);
+        assertEquals(plain.price, result.price, tolerance);
+    }
+}
@@ -0,0 +1,95 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Path functionals against their closed-form control expectations
+ */
+class PathFunctionalsTest {
+
+    private static final double S0 = 100, r = 0.05, sigma = 0.3, T = 1;
+
+    @Test
+    void simulateObservesTheGeneratedPath() {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, 50);
+        List<Supplier<PathFunctional>> payoffs = List.of(
+                () -> new PathFunctionals.European(true, 100),
+                () -> new PathFunctionals.Asian(false, 100),
+                () -> new PathFunctionals.GeometricAsian(true, 100),
+                () -> new PathFunctionals.Lookback(true),
+                () -> new PathFunctionals.Barrier(true, 100, 90, true, true),
+                () -> new PathFunctionals.Cliquet(-0.05, 0.08, 0, 1, 50, 7));
+        for (Supplier<PathFunctional> payoff : payoffs) {
+            PathFunctional f = payoff.get(), twin = payoff.get(), control = payoff.get(), controlTwin = payoff.get();
+            PathGenerator path = new PathGenerator(model, new SplittableRandom(5));
+            path.start();
+            for (PathFunctional g : List.of(f, twin, control, controlTwin)) {
+                g.start(S0);
+            }
+            f.simulate(path, twin, control, controlTwin);
+
+            // The same normals by hand
+            PathFunctional up = payoff.get(), down = payoff.get();
+            up.start(S0);
+            down.start(S0);
+            SplittableRandom random = new SplittableRandom(5);
+            double S = S0, Sa = S0;
+            for (int step = 1; step <= 50; step++) {
+                double z = random.nextGaussian();
+                S *= Math.exp(model.drift() + model.vol() * z);
+                Sa *= Math.exp(model.drift() - model.vol() * z);
+                up.observe(step, S);
+                down.observe(step, Sa);
+            }
+            String name = f.getClass().getSimpleName();
+            assertEquals(up.payoff(), f.payoff(), 0.0, name);
+            assertEquals(up.payoff(), control.payoff(), 0.0, name);
+            assertEquals(down.payoff(), twin.payoff(), 0.0, name);
+            assertEquals(down.payoff(), controlTwin.payoff(), 0.0, name);
+        }
+    }
+
+    @Test
+    void cliquetResetsExactlyOncePerPeriod() {
+        PathFunctionals.Cliquet cliquet = new PathFunctionals.Cliquet(-1, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 252, 5);
+        cliquet.start(1);
+        // Each period doubles the price: 5 local returns of 100%, including the short last one
+        double S = 1;
+        int period = 1;
+        for (int step = 1; step <= 252; step++) {
+            if (step == PathFunctionals.Cliquet.resetDate(period, 252, 5)) {
+                S *= 2;
+                period++;
+            }
+            cliquet.observe(step, S);
+        }
+        assertEquals(252, PathFunctionals.Cliquet.resetDate(5, 252, 5));
+        assertEquals(5.0, cliquet.payoff(), 1e-12);
+    }
+
+    @Test
+    void cliquetMatchesLocalExpectationWhenPeriodsDoNotDivideTheSteps() {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, 252);
+        for (int periods : new int[]{5, 10}) {
+            ControlVariate control = ControlVariate.localCliquet(model, -0.05, 0.08, periods);
+            MonteCarloResult result = MonteCarloEngine.price(model, 100_000, 11, control.getFunctional());
+            double expected = model.discount() * control.getExpectation();
+            assertEquals(expected, result.price, 4 * result.standardError, "periods = " + periods);
+        }
+    }
+
+    @Test
+    void cliquetRejectsMorePeriodsThanSteps() {
+        assertThrows(IllegalArgumentException.class, () -> new PathFunctionals.Cliquet(0, 0.1, 0, 1, 12, 13));
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, 12);
+        assertThrows(IllegalArgumentException.class, () -> ControlVariate.localCliquet(model, 0, 0.1, 13));
+    }
+}
@@ -0,0 +1,90 @@
+package com.bsc.thesis.Options.montecarlo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sobol points, Brownian bridge and quasi-Monte Carlo prices
+ */
+class QuasiMonteCarloEngineTest {
+
+    private static final double S0 = 100, K = 100, r = 0.05, sigma = 0.2, T = 1;
+
+    @Test
+    void firstTwoDimensionsFormANet() {
+        // Every elementary interval of volume 2^-10 holds exactly one of the first 1024 points
+        SobolSequence.Cursor cursor = new SobolSequence(2).cursor(0);
+        double[][] points = new double[1024][2];
+        for (double[] point : points) {
+            cursor.next(point);
+        }
+        for (int k = 0; k <= 10; k++) {
+            int[] count = new int[1024];
+            for (double[] point : points) {
+                count[((int) (point[0] * (1 << k)) << (10 - k)) + (int) (point[1] * (1 << (10 - k)))]++;
+            }
+            for (int c : count) {
+                assertEquals(1, c, "k = " + k);
+            }
+        }
+    }
+
+    @Test
+    void cursorStartsAnywhereInTheSequence() {
+        for (SobolSequence.Scrambling scrambling : SobolSequence.Scrambling.values()) {
+            SobolSequence sequence = new SobolSequence(30, scrambling, new SplittableRandom(1));
+            SobolSequence.Cursor walk = sequence.cursor(0);
+            double[] expected = new double[30];
+            for (int i = 0; i <= 1000; i++) {
+                walk.next(expected);
+            }
+            double[] actual = new double[30];
+            sequence.cursor(1000).next(actual);
+            assertArrayEquals(expected, actual, 0.0, scrambling.name());
+        }
+    }
+
+    @Test
+    void bridgeHasBrownianCovariance() {
+        // The bridge is linear in z, its columns give Cov(W(i), W(j)) = min(i, j) in steps
+        int steps = 13;
+        BrownianBridge bridge = new BrownianBridge(steps);
+        double[][] columns = new double[steps][steps];
+        double[] z = new double[steps];
+        for (int k = 0; k < steps; k++) {
+            z[k] = 1;
+            bridge.buildPath(z, columns[k]);
+            z[k] = 0;
+        }
+        for (int i = 0; i < steps; i++) {
+            for (int j = 0; j < steps; j++) {
+                double covariance = 0;
+                for (int k = 0; k < steps; k++) {
+                    covariance += columns[k][i] * columns[k][j];
+                }
+                assertEquals(Math.min(i, j) + 1, covariance, 1e-12, "i = " + i + ", j = " + j);
+            }
+        }
+    }
+
+    @Test
+    void europeanMatchesBlackScholesWithASmallerError() {
+        GeometricBrownianMotion model = new GeometricBrownianMotion(S0, r, sigma, T, 16);
+        double sT = sigma * Math.sqrt(T);
+        double d1 = (Math.log(S0 / K) + (r + 0.5 * sigma * sigma) * T) / sT;
+        double exact = S0 * Normal.cdf(d1) - K * Math.exp(-r * T) * Normal.cdf(d1 - sT);
+
+        Supplier<PathFunctional> call = () -> new PathFunctionals.European(true, K);
+        MonteCarloResult qmc = QuasiMonteCarloEngine.price(model, 8192, QuasiMonteCarloEngine.DEFAULT_REPLICAS, 3,
+                SobolSequence.Scrambling.LINEAR_SHIFT, call);
+        MonteCarloResult mc = MonteCarloEngine.price(model, qmc.paths, 3, call);
+        assertEquals(exact, qmc.price, 4 * qmc.standardError);
+        assertTrue(qmc.standardError < mc.standardError / 10, "QMC " + qmc.standardError + ", MC " + mc.standardError);
+    }
+}
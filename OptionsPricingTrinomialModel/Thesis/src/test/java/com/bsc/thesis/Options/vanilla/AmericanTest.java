@@ -0,0 +1,35 @@
+package com.bsc.thesis.Options.vanilla;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Term structure against the single-maturity pricer
+ */
+class AmericanTest {
+
+    private static final double S0 = 100, r = 0.03, p = 0.25, sigma = 0.2;
+
+    @Test
+    void termStructureMatchesEveryMaturity() throws InterruptedException {
+        new American(100);
+        int maxT = 60;
+        double[] A = American.calculateAmericanTermStructure(S0, maxT, r, p, sigma);
+        assertEquals(maxT + 1, A.length);
+        for (int T = 1; T <= maxT; T++) {
+            assertEquals(American.calculateAmericanOptions(S0, T, r, p, sigma), A[T], "T = " + T);
+            if (T > 1) {
+                assertTrue(A[T] >= A[T - 1], "T = " + T + ": " + A[T] + " < " + A[T - 1]);
+            }
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveMaturity() {
+        assertThrows(IllegalArgumentException.class, () -> American.calculateAmericanOptions(S0, 0, r, p, sigma));
+        assertThrows(IllegalArgumentException.class, () -> American.calculateAmericanTermStructure(S0, 0, r, p, sigma));
+    }
+}
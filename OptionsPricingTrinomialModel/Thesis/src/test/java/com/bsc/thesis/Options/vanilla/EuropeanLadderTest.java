@@ -0,0 +1,55 @@
+package com.bsc.thesis.Options.vanilla;
+
+import com.bsc.thesis.Options.vanilla.utils.TrinomialOptionPricing;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Single-pass strike ladder against one rolling induction per strike
+ */
+class EuropeanLadderTest {
+
+    private static final double S0 = 100, r = 0.05, sigma = 0.2, T = 1, p = 0.3;
+
+    @Test
+    void matchesOneInductionPerStrike() {
+        int N = 1000;
+        double h = T / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+        double[] strikes = new double[40];
+        boolean[] isCall = new boolean[strikes.length];
+        for (int k = 0; k < strikes.length; k++) {
+            strikes[k] = 60 + 2 * k;
+            isCall[k] = k % 2 == 0;
+        }
+
+        double[] prices = EuropeanLadder.calculateEuropeanOptions(S0, strikes, isCall, N, u, r, p, h);
+        for (int k = 0; k < strikes.length; k++) {
+            double K = strikes[k];
+            double expected = isCall[k]
+                    ? TrinomialOptionPricing.priceOptionRolling(S0, N, x -> Math.max(x - K, 0), r, p, h, u)
+                    : TrinomialOptionPricing.priceOptionRolling(S0, N, x -> Math.max(K - x, 0), r, p, h, u);
+            assertEquals(expected, prices[k], 1e-13 * Math.max(1, expected), "K = " + K + ", isCall = " + isCall[k]);
+        }
+    }
+
+    @Test
+    void statePricesSumToTheDiscountFactor() {
+        int N = 500;
+        double h = T / N;
+        double[] statePrices = EuropeanLadder.terminalStatePrices(N, r, p, h, sigma * Math.sqrt(h / (2 * p)));
+        double sum = 0;
+        for (double q : statePrices) {
+            sum += q;
+        }
+        assertEquals(Math.exp(-r * T), sum, 1e-13);
+    }
+
+    @Test
+    void rejectsMismatchedTypes() {
+        assertThrows(IllegalArgumentException.class,
+                () -> EuropeanLadder.calculateEuropeanOptions(S0, new double[]{90, 100}, new boolean[]{true}, 10, 0.1, r, p, 0.1));
+    }
+}
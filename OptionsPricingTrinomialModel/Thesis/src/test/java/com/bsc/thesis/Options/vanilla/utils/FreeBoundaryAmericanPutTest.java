@@ -0,0 +1,40 @@
+package com.bsc.thesis.Options.vanilla.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boundary-tracking American put against the dense max(exercise, continuation) induction
+ */
+class FreeBoundaryAmericanPutTest {
+
+    @Test
+    void matchesDenseInduction() {
+        double r = 0.06, sigma = 0.2, T = 1, p = 0.25;
+        int N = 200;
+        double h = T / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+        for (double S0 : new double[]{30, 36, 40, 44, 60}) {
+            double[][] dense = TrinomialOptionPricing.americanPut(StockPricesTree.generateStockPrices(S0, N, u), 40, r, N, p, h, u);
+            FreeBoundaryAmericanPut.Result result = FreeBoundaryAmericanPut.americanPut(StockPricesTree.generateStockLattice(S0, N, u), 40, r, p, h);
+            assertEquals(dense[N][0], result.price, 1e-10 * dense[N][0], "S0 = " + S0);
+        }
+    }
+
+    @Test
+    void criticalPriceFallsBackwardInTime() {
+        double r = 0.06, sigma = 0.2, T = 1, p = 0.25;
+        int N = 400;
+        double h = T / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+        FreeBoundaryAmericanPut.Result result = FreeBoundaryAmericanPut.americanPut(StockPricesTree.generateStockLattice(36, N, u), 40, r, p, h);
+        for (int j = 1; j <= N; j++) {
+            if (!Double.isNaN(result.criticalPrices[j - 1])) {
+                assertTrue(result.criticalPrices[j - 1] <= result.criticalPrices[j] + 1e-12, "step " + j);
+            }
+        }
+        assertTrue(result.criticalPrices[N] <= 40);
+    }
+}
@@ -0,0 +1,81 @@
+package com.bsc.thesis.Options.vanilla.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tiled induction against the plain step-by-step stencil
+ */
+class ParallelInductionTest {
+
+    private static final double S0 = 100, K = 100, r = 0.05, sigma = 0.2, T = 1, p = 0.3;
+
+    // Several tiles per band and a partial last band
+    private static final int N = 3 * ParallelInduction.TILE_WIDTH / 2 + 17;
+
+    @Test
+    void europeanMatchesTheSerialStencil() {
+        double[] Q = probabilities();
+        double[] terminal = putPayoff();
+        double[] serial = serialInduction(terminal.clone(), N, 0, Q, null);
+        assertEquals(serial[N], ParallelInduction.price(terminal.clone(), N, Q[0], Q[1], Q[2], null));
+    }
+
+    @Test
+    void partialInductionKeepsEveryReachableRow() {
+        double[] Q = probabilities();
+        int toStep = N / 3;
+        double[] serial = serialInduction(putPayoff(), N, toStep, Q, null);
+        double[] tiled = ParallelInduction.induct(putPayoff(), N, N, toStep, Q[0], Q[1], Q[2], null);
+        for (int i = N - toStep; i <= N + toStep; i++) {
+            assertEquals(serial[i], tiled[i], "row " + i);
+        }
+    }
+
+    @Test
+    void ruleIsAppliedAtEveryStep() {
+        double[] Q = probabilities();
+        double[] exercise = putPayoff();
+        ParallelInduction.NodeRule earlyExercise = (step, values, offset, from, to) -> {
+            for (int i = from; i <= to; i++) {
+                values[i - offset] = Math.max(values[i - offset], exercise[i]);
+            }
+        };
+        double[] serial = serialInduction(putPayoff(), N, 0, Q, exercise);
+        assertEquals(serial[N], ParallelInduction.price(putPayoff(), N, Q[0], Q[1], Q[2], earlyExercise));
+    }
+
+    private static double[] probabilities() {
+        double h = T / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+        double[] Q = TrinomialOptionPricing.riskNeutralProbabilities(r, p, h, u);
+        double discount = Math.exp(-r * h);
+        return new double[]{discount * Q[0], discount * Q[1], discount * Q[2]};
+    }
+
+    private static double[] putPayoff() {
+        double h = T / N;
+        StockLattice S = new StockLattice(S0, N, sigma * Math.sqrt(h / (2 * p)));
+        double[] values = new double[2 * N + 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.max(K - S.rowPrice(i), 0);
+        }
+        return values;
+    }
+
+    private static double[] serialInduction(double[] next, int N, int toStep, double[] Q, double[] exercise) {
+        double[] current = new double[next.length];
+        for (int j = N - 1; j >= toStep; j--) {
+            if (exercise == null) {
+                StencilKernel.europeanScalar(next, current, N - j, N + j, Q[0], Q[1], Q[2]);
+            } else {
+                StencilKernel.americanScalar(next, current, exercise, N - j, N + j, Q[0], Q[1], Q[2]);
+            }
+            double[] temp = next;
+            next = current;
+            current = temp;
+        }
+        return next;
+    }
+}
@@ -0,0 +1,118 @@
+package com.bsc.thesis.Options.vanilla.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the scalar and Vector API backward induction kernels.
+ * After mvn test-compile, run {@link #main} or org.openjdk.jmh.Main on the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class StencilKernelBenchmark {
+
+    @Param({"1000", "5000", "20000"})
+    public int N;
+
+    private double[] next;
+    private double[] current;
+    private double[] exercise;
+    private double dqu, dq0, dqd;
+
+    @Setup
+    public void setup() {
+        double S0 = 100.0, K = 100.0, r = 0.05, T = 1.0, sigma = 0.2, p = 0.3;
+        double h = T / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+
+        double[] Q = TrinomialOptionPricing.riskNeutralProbabilities(r, p, h, u);
+        double discount = Math.exp(-r * h);
+        dqu = discount * Q[0];
+        dq0 = discount * Q[1];
+        dqd = discount * Q[2];
+
+        StockLattice S = new StockLattice(S0, N, u);
+        next = new double[2 * N + 1];
+        current = new double[2 * N + 1];
+        exercise = new double[2 * N + 1];
+        for (int i = 0; i < 2 * N + 1; i++) {
+            exercise[i] = Math.max(K - S.rowPrice(i), 0);
+        }
+    }
+
+    private double european(boolean vectorized) {
+        double[] a = next, b = current;
+        System.arraycopy(exercise, 0, a, 0, a.length);
+        for (int j = N - 1; j >= 0; j--) {
+            if (vectorized) {
+                StencilKernel.european(a, b, N - j, N + j, dqu, dq0, dqd);
+            } else {
+                StencilKernel.europeanScalar(a, b, N - j, N + j, dqu, dq0, dqd);
+            }
+            double[] temp = a;
+            a = b;
+            b = temp;
+        }
+        return a[N];
+    }
+
+    private double american(boolean vectorized) {
+        double[] a = next, b = current;
+        System.arraycopy(exercise, 0, a, 0, a.length);
+        for (int j = N - 1; j >= 0; j--) {
+            if (vectorized) {
+                StencilKernel.american(a, b, exercise, N - j, N + j, dqu, dq0, dqd);
+            } else {
+                StencilKernel.americanScalar(a, b, exercise, N - j, N + j, dqu, dq0, dqd);
+            }
+            double[] temp = a;
+            a = b;
+            b = temp;
+        }
+        return a[N];
+    }
+
+    @Benchmark
+    public double europeanScalar() {
+        return european(false);
+    }
+
+    @Benchmark
+    public double europeanVector() {
+        return european(true);
+    }
+
+    @Benchmark
+    public double americanScalar() {
+        return american(false);
+    }
+
+    @Benchmark
+    public double americanVector() {
+        return american(true);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StencilKernelBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
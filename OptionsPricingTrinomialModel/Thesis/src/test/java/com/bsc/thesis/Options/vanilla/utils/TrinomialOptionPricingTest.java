@@ -0,0 +1,51 @@
+package com.bsc.thesis.Options.vanilla.utils;
+
+import com.bsc.thesis.Options.montecarlo.Normal;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.DoubleUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Rolling-column induction against the full price matrix and Black-Scholes
+ */
+class TrinomialOptionPricingTest {
+
+    private static final double S0 = 100, r = 0.05, sigma = 0.2, T = 1, p = 0.3;
+
+    @Test
+    void rollingMatchesTheMatrix() {
+        int N = 300;
+        double h = T / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+        double[][] S = StockPricesTree.generateStockPrices(S0, N, u);
+        for (double K : new double[]{80, 100, 120}) {
+            DoubleUnaryOperator call = x -> Math.max(x - K, 0);
+            DoubleUnaryOperator put = x -> Math.max(K - x, 0);
+            assertEquals(TrinomialOptionPricing.priceOption(S, call, r, p, h, u),
+                    TrinomialOptionPricing.priceOptionRolling(S0, N, call, r, p, h, u), 1e-12, "call K = " + K);
+            assertEquals(TrinomialOptionPricing.priceOption(S, put, r, p, h, u),
+                    TrinomialOptionPricing.priceOptionRolling(S0, N, put, r, p, h, u), 1e-12, "put K = " + K);
+        }
+    }
+
+    @Test
+    void rollingConvergesToBlackScholes() {
+        int N = 5000;
+        double h = T / N;
+        double u = sigma * Math.sqrt(h / (2 * p));
+        double K = 100;
+        assertEquals(blackScholes(true, K), TrinomialOptionPricing.priceOptionRolling(S0, N, x -> Math.max(x - K, 0), r, p, h, u), 1e-3);
+        assertEquals(blackScholes(false, K), TrinomialOptionPricing.priceOptionRolling(S0, N, x -> Math.max(K - x, 0), r, p, h, u), 1e-3);
+    }
+
+    static double blackScholes(boolean isCall, double K) {
+        double sT = sigma * Math.sqrt(T);
+        double d1 = (Math.log(S0 / K) + (r + 0.5 * sigma * sigma) * T) / sT;
+        double d2 = d1 - sT;
+        double discount = Math.exp(-r * T);
+        return isCall ? S0 * Normal.cdf(d1) - K * discount * Normal.cdf(d2)
+                : K * discount * Normal.cdf(-d2) - S0 * Normal.cdf(-d1);
+    }
+}